@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.drivers;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hands each thread running scenarios a Chrome of its own, started the first
+ * time the thread asks and then kept for every later scenario on that thread,
+ * so a browser is started once per worker rather than once per scenario.
+ * <p>
+ * Between scenarios {@link #reset} clears cookies and web storage instead of
+ * quitting the browser. Chrome runs headless unless the {@code webdriver.headless}
+ * system property is {@code false}.
+ */
+public final class WebDriverPool {
+
+    private static final List<WebDriver> DRIVERS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<WebDriver> DRIVER = ThreadLocal.withInitial(WebDriverPool::start);
+
+    private static boolean resolved;
+
+    private WebDriverPool() {
+    }
+
+    public static WebDriver driver() {
+        return DRIVER.get();
+    }
+
+    /**
+     * Clears what the last scenario left in the current thread's browser.
+     */
+    public static void reset() {
+        WebDriver driver = DRIVER.get();
+        String url = driver.getCurrentUrl();
+        if (url != null && url.startsWith("http"))
+            ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+        driver.manage().deleteAllCookies();
+        driver.get("about:blank");
+    }
+
+    /**
+     * Quits every browser the pool has started.
+     */
+    public static void quitAll() {
+        for (WebDriver driver : DRIVERS) {
+            try {
+                driver.quit();
+            } catch (RuntimeException e) {
+                // the browser has already gone
+            }
+        }
+        DRIVERS.clear();
+    }
+
+    private static WebDriver start() {
+        resolveChromeDriver();
+        ChromeOptions options = new ChromeOptions();
+        if (Boolean.parseBoolean(System.getProperty("webdriver.headless", "true")))
+            options.addArguments("--headless=new");
+        options.addArguments("--window-size=1920,1080", "--disable-gpu", "--disable-extensions", "--no-sandbox");
+        WebDriver driver = new ChromeDriver(options);
+        DRIVERS.add(driver);
+        return driver;
+    }
+
+    /**
+     * Finds or downloads a chromedriver matching the installed Chrome, once for all threads.
+     */
+    private static synchronized void resolveChromeDriver() {
+        if (!resolved) {
+            WebDriverManager.chromedriver().setup();
+            resolved = true;
+        }
+    }
+}
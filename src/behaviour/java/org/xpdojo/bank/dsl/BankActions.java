@@ -17,24 +17,59 @@
 
 package org.xpdojo.bank.dsl;
 
-import org.openqa.selenium.WebDriver;
-import org.xpdojo.bank.pages.LoginPage;
-import org.xpdojo.bank.pages.StatementPage;
-
-public class BankActions {
-    private WebDriver driver;
-    private LoginPage loginPage;
-    private StatementPage statementPage;
-
-    public BankActions(WebDriver driver) {
-        this.driver = driver;
-        this.loginPage = new LoginPage(driver);
+/**
+ * What the behaviour scenarios do to the bank, independent of how it is driven.
+ * <p>
+ * {@link #create()} picks the backend named by the {@code bank.actions} system
+ * property: {@code selenium} (the default) drives a real browser through the
+ * pages, while {@code http} makes the same requests the pages would with a plain
+ * HTTP client, which is much faster but runs none of the pages' JavaScript.
+ */
+public interface BankActions extends AutoCloseable {
+
+    String BASE_URL = System.getProperty("bank.url", "http://localhost:8080");
+
+    static BankActions create() {
+        String backend = System.getProperty("bank.actions", "selenium");
+        switch (backend) {
+            case "selenium":
+                return new SeleniumBankActions();
+            case "http":
+                return new HttpBankActions();
+            default:
+                throw new IllegalArgumentException("Unknown bank.actions backend " + backend);
+        }
     }
 
-    public void loginToBank(String user, String pass) {
-        loginPage.login(user, pass);
+    /**
+     * @return whether the login page is displayed
+     */
+    boolean openLoginPage();
+
+    void enterCredentials(String username, String password);
+
+    void submitLogin();
+
+    default void loginToBank(String user, String pass) {
+        enterCredentials(user, pass);
+        submitLogin();
     }
 
-    
+    /**
+     * @return whether the statement page is displayed, waiting for the redirect after logging in
+     */
+    boolean isOnStatementPage();
+
+    int transactionCount();
+
+    /**
+     * @return the error shown on the login page, or an empty string if there is none
+     */
+    String errorMessage();
 
+    /**
+     * Clears whatever the scenario left behind, such as the session.
+     */
+    @Override
+    void close();
 }
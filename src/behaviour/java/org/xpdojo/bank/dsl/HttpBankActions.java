@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.dsl;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Drives the bank without a browser, making the requests the pages would make:
+ * the login page's script is played out here by posting the credentials as JSON
+ * and then loading the statement page, whose HTML is read with jsoup, and the JSON
+ * statement its script fills the table from.
+ * <p>
+ * The HTTP client is shared by every scenario; each keeps its own session cookie.
+ */
+public class HttpBankActions implements BankActions {
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private Document page;
+    private String username;
+    private String password;
+    private String sessionCookie;
+    private String errorMessage = "";
+
+    @Override
+    public boolean openLoginPage() {
+        page = get("/login.html");
+        return page.title().contains("Bank Login") && page.selectFirst("button[type='submit']") != null;
+    }
+
+    @Override
+    public void enterCredentials(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void submitLogin() {
+        JsonObject credentials = new JsonObject();
+        credentials.addProperty("username", username);
+        credentials.addProperty("password", password);
+        HttpRequest request = requestFor("/api/login")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(credentials.toString()))
+            .build();
+        HttpResponse<String> response = send(request);
+        response.headers().firstValue("Set-Cookie")
+            .ifPresent(cookie -> sessionCookie = cookie.substring(0, cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';')));
+
+        try {
+            JsonObject data = JsonParser.parseString(response.body()).getAsJsonObject();
+            if (data.get("success").getAsBoolean()) {
+                page = get("/statement.html");
+            } else {
+                errorMessage = data.has("message") ? data.get("message").getAsString() : "Login failed";
+            }
+        } catch (RuntimeException e) {
+            errorMessage = "Server error occurred";
+        }
+    }
+
+    @Override
+    public boolean isOnStatementPage() {
+        return page != null && page.title().contains("Bank Statement") && page.getElementById("statementTable") != null;
+    }
+
+    @Override
+    public int transactionCount() {
+        HttpResponse<String> response = send(requestFor("/api/statement?format=json").GET().build());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("GET /api/statement?format=json returned " + response.statusCode());
+        return JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonArray("transactions").size();
+    }
+
+    @Override
+    public String errorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public void close() {
+        sessionCookie = null;
+    }
+
+    private Document get(String path) {
+        HttpResponse<String> response = send(requestFor(path).GET().build());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        return Jsoup.parse(response.body(), BASE_URL + path);
+    }
+
+    private HttpRequest.Builder requestFor(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(BASE_URL + path)).timeout(TIMEOUT);
+        if (sessionCookie != null)
+            request.header("Cookie", sessionCookie);
+        return request;
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) {
+        try {
+            return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling " + request.uri(), e);
+        }
+    }
+}
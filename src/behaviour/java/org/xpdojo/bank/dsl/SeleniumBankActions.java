@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.dsl;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.xpdojo.bank.drivers.WebDriverPool;
+import org.xpdojo.bank.pages.LoginPage;
+import org.xpdojo.bank.pages.StatementPage;
+
+import java.time.Duration;
+
+/**
+ * Drives the bank through the pages in the current thread's pooled browser.
+ */
+public class SeleniumBankActions implements BankActions {
+    private final WebDriver driver;
+    private LoginPage loginPage;
+    private StatementPage statementPage;
+
+    public SeleniumBankActions() {
+        this.driver = WebDriverPool.driver();
+    }
+
+    @Override
+    public boolean openLoginPage() {
+        driver.get(BASE_URL + "/login.html");
+        loginPage = new LoginPage(driver);
+        return driver.getTitle().contains("Bank Login") && loginPage.isDisplayed();
+    }
+
+    @Override
+    public void enterCredentials(String username, String password) {
+        loginPage.enterUsername(username);
+        loginPage.enterPassword(password);
+    }
+
+    @Override
+    public void submitLogin() {
+        loginPage.clickLogin();
+    }
+
+    @Override
+    public boolean isOnStatementPage() {
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(10))
+                .until(ExpectedConditions.urlContains("statement.html"));
+        } catch (TimeoutException e) {
+            return false;
+        }
+        statementPage = new StatementPage(driver);
+        return statementPage.isDisplayed();
+    }
+
+    @Override
+    public int transactionCount() {
+        return statementPage.getTransactionCount();
+    }
+
+    @Override
+    public String errorMessage() {
+        // Wait for error message to appear due to AJAX response
+        new WebDriverWait(driver, Duration.ofSeconds(10))
+            .until(ExpectedConditions.visibilityOfElementLocated(By.id("errorMessage")));
+        return loginPage.getErrorMessage();
+    }
+
+    @Override
+    public void close() {
+        WebDriverPool.reset();
+    }
+}
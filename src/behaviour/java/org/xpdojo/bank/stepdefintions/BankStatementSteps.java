@@ -18,87 +18,68 @@
 
 package org.xpdojo.bank.stepdefintions;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.xpdojo.bank.pages.LoginPage;
-import org.xpdojo.bank.pages.StatementPage;
+import org.xpdojo.bank.drivers.WebDriverPool;
+import org.xpdojo.bank.dsl.BankActions;
 
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.When;
 import io.cucumber.java.en.Then;
 import static org.junit.Assert.*;
 
-import java.time.Duration;
-
 public class BankStatementSteps {
-    private WebDriver driver;
-    private LoginPage loginPage;
-    private StatementPage statementPage;
-      @Before
+    private BankActions bank;
+
+    @Before
     public void setup() {
-        WebDriverManager.chromedriver().setup();
-        driver = WebDriverManager.chromedriver().create();
-        driver.manage().window().maximize();
+        bank = BankActions.create();
     }
-    
+
     @After
     public void teardown() {
-        if (driver != null) {
-            driver.quit();
+        if (bank != null) {
+            bank.close();
         }
-        WebDriverManager.chromedriver().quit();
     }
-    
+
+    @AfterAll
+    public static void quitBrowsers() {
+        WebDriverPool.quitAll();
+    }
+
     @Given("I am on the bank login page")
     public void i_am_on_the_bank_login_page() {
-        driver.get("http://localhost:8080/login.html");
-        loginPage = new LoginPage(driver);
-        // Verify we're on the login page
-        assertTrue("Login page should be displayed", 
-            driver.getTitle().contains("Bank Login"));
-        assertTrue(loginPage.isDisplayed());
+        assertTrue("Login page should be displayed", bank.openLoginPage());
     }
-      @When("I enter username {string} and password {string}")
+
+    @When("I enter username {string} and password {string}")
     public void i_enter_username_and_password(String username, String password) {
-        loginPage.enterUsername(username);
-        loginPage.enterPassword(password);
+        bank.enterCredentials(username, password);
     }
-    
+
     @When("I click the login button")
     public void i_click_the_login_button() {
-        loginPage.clickLogin();
+        bank.submitLogin();
     }
-    
+
     @Then("I should be redirected to the bank statement page")
     public void i_should_be_redirected_to_the_bank_statement_page() {
-        // Wait for redirect and page load
-        new WebDriverWait(driver, Duration.ofSeconds(10))
-            .until(ExpectedConditions.urlContains("statement.html"));
-            
-        statementPage = new StatementPage(driver);
-        assertTrue("Statement page should be displayed", statementPage.isDisplayed());
+        assertTrue("Statement page should be displayed", bank.isOnStatementPage());
     }
-    
+
     @Then("I should see {int} transactions in the statement")
     public void i_should_see_transactions_in_the_statement(int expectedCount) {
-        assertEquals("Number of transactions should match", 
-            expectedCount, statementPage.getTransactionCount());
+        assertEquals("Number of transactions should match",
+            expectedCount, bank.transactionCount());
     }
-    
+
     @Then("I should see an error message")
     public void i_should_see_an_error_message() {
-        // Wait for error message to appear due to AJAX response
-        new WebDriverWait(driver, Duration.ofSeconds(10))
-            .until(ExpectedConditions.visibilityOfElementLocated(By.id("errorMessage")));
-            
-        String errorMsg = loginPage.getErrorMessage();
+        String errorMsg = bank.errorMessage();
         assertFalse("Error message should not be empty", errorMsg.isEmpty());
-        assertTrue("Error message should indicate login failure", 
+        assertTrue("Error message should indicate login failure",
             errorMsg.contains("Invalid credentials") || errorMsg.contains("Login failed"));
     }
-}
\ No newline at end of file
+}
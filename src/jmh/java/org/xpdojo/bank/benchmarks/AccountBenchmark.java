@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.xpdojo.bank.Money.amountOf;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+	private static final Money ONE = amountOf(1);
+
+	@Param({ "1000", "100000" })
+	private int ledgerSize;
+
+	@Param({ "list", "columnar" })
+	private String ledger;
+
+	private Account account;
+	private Account receiver;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		account = Ledgers.accountWith(ledger, ledgerSize);
+		receiver = Ledgers.accountWith(ledger, ledgerSize);
+	}
+
+	@Benchmark
+	public Money balance() {
+		return account.balance();
+	}
+
+	@Benchmark
+	public Result withdraw() {
+		// the deposit keeps the account in credit, so every withdrawal is applied and the ledger keeps growing
+		account.deposit(ONE);
+		return account.withdraw(ONE);
+	}
+
+	@Benchmark
+	public Result transfer() {
+		Result result = account.transfer(ONE, receiver);
+		receiver.transfer(ONE, account);
+		return result;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.benchmarks;
+
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.Clock;
+import org.xpdojo.bank.ColumnarLedger;
+import org.xpdojo.bank.Ledger;
+import org.xpdojo.bank.ListLedger;
+
+import java.time.Instant;
+
+import static org.xpdojo.bank.Money.amountOf;
+
+/**
+ * Builds accounts with ledgers of a given size for the benchmarks to work against.
+ */
+final class Ledgers {
+
+	private static final Instant NOW = Instant.parse("2019-02-03T10:15:30Z");
+
+	static final Clock FIXED_CLOCK = () -> NOW;
+
+	private Ledgers() {
+	}
+
+	static Account accountWith(String ledger, int size) {
+		Account account = Account.accountWithBalance(amountOf(1_000_000), FIXED_CLOCK, ledgerOf(ledger));
+		for (int i = 1; i < size; i++) {
+			if (i % 3 == 0)
+				account.withdraw(amountOf(i % 500));
+			else
+				account.deposit(amountOf(i % 1000));
+		}
+		return account;
+	}
+
+	private static Ledger ledgerOf(String kind) {
+		switch (kind) {
+			case "list":
+				return new ListLedger();
+			case "columnar":
+				return new ColumnarLedger();
+			default:
+				throw new IllegalArgumentException("Unknown ledger " + kind);
+		}
+	}
+}
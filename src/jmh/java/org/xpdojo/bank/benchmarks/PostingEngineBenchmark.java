@@ -0,0 +1,109 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.ColumnarLedger;
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+import org.xpdojo.bank.engine.PostingEngine;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.xpdojo.bank.Money.amountOf;
+
+/**
+ * Transfers through the posting engine between accounts on the same shard and on
+ * different shards, each thread moving money back and forth between its own pair.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class PostingEngineBenchmark {
+
+	private static final Money ONE = amountOf(1);
+	private static final int SHARDS = 4;
+
+	@State(Scope.Benchmark)
+	public static class Engine {
+
+		@Param({ "sameShard", "crossShard" })
+		String route;
+
+		final AccountRegistry registry = new AccountRegistry();
+		final AtomicLong nextId = new AtomicLong(1);
+		PostingEngine engine;
+
+		@Setup(Level.Trial)
+		public void start() {
+			engine = new PostingEngine(registry, SHARDS, 1 << 14);
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			engine.close();
+		}
+
+		long open() {
+			long id = nextId.getAndIncrement();
+			registry.putIfAbsent(id, Account.accountWithBalance(amountOf(1_000_000_000), Ledgers.FIXED_CLOCK, new ColumnarLedger()));
+			return id;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Pair {
+
+		long sender;
+		long receiver;
+
+		@Setup(Level.Trial)
+		public void open(Engine engine) {
+			sender = engine.open();
+			boolean sameShard = engine.route.equals("sameShard");
+			do {
+				receiver = engine.open();
+			} while ((engine.engine.shardOf(receiver) == engine.engine.shardOf(sender)) != sameShard);
+		}
+	}
+
+	@Benchmark
+	public Result transfer(Engine engine, Pair pair) {
+		engine.engine.transfer(pair.sender, pair.receiver, ONE);
+		return engine.engine.transfer(pair.receiver, pair.sender, ONE).join();
+	}
+}
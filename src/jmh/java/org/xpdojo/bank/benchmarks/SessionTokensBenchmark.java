@@ -0,0 +1,85 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xpdojo.bank.auth.SessionTokens;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionTokensBenchmark {
+
+	private SessionTokens tokens;
+	private String valid;
+	private String forged;
+
+	@Setup
+	public void setUp() {
+		tokens = new SessionTokens(SessionTokens.randomKey(), Ledgers.FIXED_CLOCK);
+		valid = tokens.issue("testuser");
+		forged = new SessionTokens(SessionTokens.randomKey(), Ledgers.FIXED_CLOCK).issue("testuser");
+	}
+
+	@Benchmark
+	public String validate() {
+		return tokens.validate(valid);
+	}
+
+	@Benchmark
+	public String rejectForged() {
+		return tokens.validate(forged);
+	}
+
+	@Benchmark
+	public String issue() {
+		return tokens.issue("testuser");
+	}
+
+	/**
+	 * A validation on a virtual thread of its own, as in a request handled on one;
+	 * compare with {@link #startVirtualThread} for the cost of the thread alone.
+	 */
+	@Benchmark
+	public String validateOnNewVirtualThread() throws InterruptedException {
+		String[] user = new String[1];
+		Thread.ofVirtual().start(() -> user[0] = tokens.validate(valid)).join();
+		return user[0];
+	}
+
+	@Benchmark
+	public String startVirtualThread() throws InterruptedException {
+		String[] user = new String[1];
+		Thread.ofVirtual().start(() -> user[0] = valid).join();
+		return user[0];
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.BalanceStatement;
+import org.xpdojo.bank.FullStatement;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int ledgerSize;
+
+	@Param({ "list", "columnar" })
+	private String ledger;
+
+	private Account account;
+	private final FullStatement fullStatement = new FullStatement();
+	private final BalanceStatement balanceStatement = new BalanceStatement(Ledgers.FIXED_CLOCK);
+	private final CountingWriter writer = new CountingWriter();
+
+	@Setup
+	public void setUp() {
+		account = Ledgers.accountWith(ledger, ledgerSize);
+	}
+
+	@Benchmark
+	public long fullStatement() throws IOException {
+		writer.reset();
+		fullStatement.write(account, writer);
+		return writer.count;
+	}
+
+	@Benchmark
+	public long balanceStatement() throws IOException {
+		writer.reset();
+		balanceStatement.write(account, writer);
+		return writer.count;
+	}
+
+	/**
+	 * Discards what is written so that the benchmarks measure rendering rather than buffering.
+	 */
+	private static class CountingWriter extends Writer {
+
+		private long count;
+
+		void reset() {
+			count = 0;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
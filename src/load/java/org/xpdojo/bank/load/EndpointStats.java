@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and error count of the requests made to one endpoint, recorded from
+ * any number of threads.
+ * <p>
+ * Latencies go into an HdrHistogram {@link Recorder} in nanoseconds, to three
+ * significant digits; {@link #reset()} discards what was recorded during warm-up.
+ */
+class EndpointStats {
+
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final String name;
+	private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+	private final LongAdder errors = new LongAdder();
+	private Histogram histogram;
+	private long failed;
+
+	EndpointStats(String name) {
+		this.name = name;
+	}
+
+	void recordSuccess(long latencyNanos) {
+		record(latencyNanos);
+	}
+
+	void recordError(long latencyNanos) {
+		errors.increment();
+		record(latencyNanos);
+	}
+
+	void reset() {
+		recorder.reset();
+		errors.reset();
+	}
+
+	/**
+	 * Takes what has been recorded since the last reset, which {@link #report} and
+	 * {@link #writePercentiles} then describe; requests still finishing afterwards
+	 * are left out of both the latencies and the errors.
+	 */
+	void finish() {
+		histogram = recorder.getIntervalHistogram();
+		failed = errors.sumThenReset();
+	}
+
+	static void printHeader(PrintStream out) {
+		out.printf("%-10s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+			"endpoint", "requests", "errors", "error%", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "mean ms");
+	}
+
+	void report(PrintStream out, double seconds) {
+		long requests = histogram.getTotalCount();
+		out.printf("%-10s %10d %8d %8.2f %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+			name,
+			requests,
+			failed,
+			requests == 0 ? 0.0 : 100.0 * failed / requests,
+			requests / seconds,
+			millis(histogram.getValueAtPercentile(50)),
+			millis(histogram.getValueAtPercentile(99)),
+			millis(histogram.getValueAtPercentile(99.9)),
+			millis(histogram.getMaxValue()),
+			histogram.getMean() / 1e6);
+	}
+
+	/**
+	 * Writes the full percentile distribution in milliseconds to {@code <name>.hgrm}
+	 * in {@code directory}, in the format the HdrHistogram plotter reads.
+	 */
+	Path writePercentiles(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Path file = directory.resolve(name + ".hgrm");
+		try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+			histogram.outputPercentileDistribution(out, 1e6);
+		}
+		return file;
+	}
+
+	private void record(long latencyNanos) {
+		recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the login and statement endpoints of a running bank and reports the
+ * throughput, latency percentiles and error rate of each.
+ * <p>
+ * Each of {@code load.concurrency} virtual threads repeatedly logs in through
+ * {@code /api/login} and fetches its statement from {@code /api/statement} with
+ * the session cookie it was given, for {@code load.warmup} seconds whose results
+ * are discarded and then for {@code load.duration} seconds that are measured.
+ * <p>
+ * Left to itself the loop is closed: a slow response holds up the next request,
+ * so a stall is recorded once rather than for every request it delayed. Setting
+ * {@code load.rate} to a target number of iterations a second across all threads
+ * schedules each iteration in advance and measures latency from when it should
+ * have started, which counts that waiting too. The statement request is measured
+ * as starting as far behind its actual start as the iteration was behind schedule.
+ * <p>
+ * Run with {@code mvn verify -P load-tests -DskipTests}, which starts the webapp
+ * in Jetty first; or directly against any server given by {@code load.url}.
+ */
+public class LoadGenerator {
+
+	private static final String CREDENTIALS = "{\"username\":\"%s\",\"password\":\"%s\"}";
+
+	private final URI login;
+	private final URI statement;
+	private final String credentials;
+	private final HttpClient client;
+	private final EndpointStats loginStats = new EndpointStats("login");
+	private final EndpointStats statementStats = new EndpointStats("statement");
+	private volatile boolean running = true;
+
+	LoadGenerator(String baseUrl, String username, String password) {
+		this.login = URI.create(baseUrl + "/api/login");
+		this.statement = URI.create(baseUrl + "/api/statement?format=json");
+		this.credentials = String.format(CREDENTIALS, username, password);
+		this.client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(10))
+			.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		String url = System.getProperty("load.url", "http://localhost:8080");
+		int concurrency = Integer.getInteger("load.concurrency", 64);
+		int warmup = Integer.getInteger("load.warmup", 5);
+		int duration = Integer.getInteger("load.duration", 30);
+		double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+		Path output = Path.of(System.getProperty("load.output", "target/load"));
+		String username = System.getProperty("load.username", "testuser");
+		String password = System.getProperty("load.password", "password123");
+
+		System.out.printf("Driving %s with %d virtual threads%s: %ds warm-up, %ds measured%n",
+			url, concurrency, rate > 0 ? String.format(" at %.0f iterations/s", rate) : "", warmup, duration);
+		LoadGenerator generator = new LoadGenerator(url, username, password);
+		generator.run(concurrency, rate, warmup, duration);
+
+		EndpointStats.printHeader(System.out);
+		for (EndpointStats stats : generator.stats()) {
+			stats.report(System.out, duration);
+			System.out.println("  percentiles: " + stats.writePercentiles(output));
+		}
+	}
+
+	void run(int concurrency, double rate, int warmupSeconds, int durationSeconds) throws InterruptedException {
+		long periodNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+		ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+		for (int i = 0; i < concurrency; i++) {
+			// stagger paced workers so that they do not all fire at once
+			long offset = periodNanos * i / concurrency;
+			workers.execute(() -> work(periodNanos, offset));
+		}
+		TimeUnit.SECONDS.sleep(warmupSeconds);
+		for (EndpointStats stats : stats())
+			stats.reset();
+		TimeUnit.SECONDS.sleep(durationSeconds);
+		for (EndpointStats stats : stats())
+			stats.finish();
+		running = false;
+		workers.shutdown();
+		workers.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	List<EndpointStats> stats() {
+		return List.of(loginStats, statementStats);
+	}
+
+	private void work(long periodNanos, long offsetNanos) {
+		long next = System.nanoTime() + offsetNanos;
+		while (running) {
+			long start = next;
+			if (periodNanos > 0) {
+				long wait = start - System.nanoTime();
+				if (wait > 0)
+					LockSupport.parkNanos(wait);
+				next += periodNanos;
+			} else {
+				start = System.nanoTime();
+			}
+			long late = System.nanoTime() - start;
+			String cookie = login(start);
+			if (cookie != null)
+				statement(cookie, System.nanoTime() - late);
+		}
+	}
+
+	/**
+	 * @return the session cookie, or null if the login failed
+	 */
+	private String login(long start) {
+		HttpRequest request = HttpRequest.newBuilder(login)
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(credentials))
+			.build();
+		try {
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			String cookie = response.headers().firstValue("Set-Cookie").orElse(null);
+			if (response.statusCode() != 200 || cookie == null || !response.body().contains("\"success\":true")) {
+				loginStats.recordError(System.nanoTime() - start);
+				return null;
+			}
+			loginStats.recordSuccess(System.nanoTime() - start);
+			int end = cookie.indexOf(';');
+			return end < 0 ? cookie : cookie.substring(0, end);
+		} catch (IOException e) {
+			loginStats.recordError(System.nanoTime() - start);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+			return null;
+		}
+	}
+
+	private void statement(String cookie, long start) {
+		HttpRequest request = HttpRequest.newBuilder(statement)
+			.header("Cookie", cookie)
+			.GET()
+			.build();
+		try {
+			HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() == 200)
+				statementStats.recordSuccess(System.nanoTime() - start);
+			else
+				statementStats.recordError(System.nanoTime() - start);
+		} catch (IOException e) {
+			statementStats.recordError(System.nanoTime() - start);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+}
@@ -19,54 +19,223 @@ package org.xpdojo.bank;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.xpdojo.bank.Money.ZERO;
+import static org.xpdojo.bank.Money.amountOf;
+import static org.xpdojo.bank.Posting.Stamping.ONCE_PER_BATCH;
+import static org.xpdojo.bank.Posting.Stamping.PER_ENTRY;
 import static org.xpdojo.bank.Result.failure;
 import static org.xpdojo.bank.Result.success;
 import static org.xpdojo.bank.Transaction.Deposit.depositOf;
 import static org.xpdojo.bank.Transaction.Withdraw.withdrawalOf;
 
+/**
+ * An account is safe to share between threads: each deposit and withdrawal is
+ * applied under the account's own lock, and a transfer holds the locks of both
+ * accounts, always taken in the order the accounts were created, so that two
+ * transfers in opposite directions cannot deadlock.
+ */
 public class Account {
 
-    private final List<Transaction> transactions = new ArrayList<>();
+    private static final AtomicLong LOCK_ORDER = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long lockOrder = LOCK_ORDER.getAndIncrement();
+    private final Ledger ledger;
+    private final LedgerIndex index = new LedgerIndex();
     private final Clock clock;
 
+    /**
+     * Running balance, kept in step with the {@link #ledger} so that
+     * {@link #balance()} does not have to fold the whole ledger. Guarded by the lock.
+     */
+    private long balance;
+
+    /**
+     * Held back by {@link #reserve} for transfers still in flight; a withdrawal can
+     * only spend the balance beyond it. Guarded by the lock.
+     */
+    private long reserved;
+
+    /**
+     * The balance less what is reserved, published in a single write whenever
+     * either changes so that {@link #balance()} can read it without the lock.
+     */
+    private volatile long available;
+
     public static Account accountWithBalance(Money balance, Clock clock) {
-        return new Account(balance, clock);
+        return accountWithBalance(balance, clock, new ListLedger());
+    }
+
+    public static Account accountWithBalance(Money balance, Clock clock, Ledger ledger) {
+        return new Account(balance, clock, ledger);
     }
 
     public static Account emptyAccount(Clock clock) {
         return accountWithBalance(ZERO, clock);
     }
 
-    private Account(Money balance, Clock clock) {
-        this.clock = clock;
+    /**
+     * Rebuilds an account around a ledger that already holds its history, such as one
+     * recovered from a {@link Journal}, folding the ledger once to restore the balance.
+     */
+    static Account restore(Ledger ledger, Clock clock) {
+        return new Account(clock, ledger);
+    }
+
+    private Account(Money balance, Clock clock, Ledger ledger) {
+        this(clock, ledger);
         deposit(balance);
     }
 
+    private Account(Clock clock, Ledger ledger) {
+        this.clock = clock;
+        this.ledger = ledger;
+        long running = 0;
+        for (int i = 0; i < ledger.size(); i++) {
+            running += ledger.signedAmountAt(i);
+            long epochNanos = ledger.epochNanosAt(i);
+            index.appended(i + 1, running, Math.floorDiv(epochNanos, ColumnarLedger.NANOS_PER_SECOND), (int) Math.floorMod(epochNanos, ColumnarLedger.NANOS_PER_SECOND));
+        }
+        this.balance = running;
+        this.available = running;
+    }
+
+    /**
+     * The balance less any amount reserved for a transfer still in flight, which
+     * has left this account as far as anyone reading balances is concerned even
+     * though its withdrawal is not recorded until the transfer commits.
+     */
     public Money balance() {
-        return transactions().reduce(ZERO, (money, transaction) -> transaction.against(money), (a, b) -> a);
+        return amountOf(available);
     }
 
 	public void deposit(Money amount) {
-        transactions.add(depositOf(amount, clock.now()));
+        lock.lock();
+        try {
+            record(depositOf(amount, clock.now()));
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Result withdraw(Money amount) {
-        if (balance().isLessThan(amount))
-            return failure();
+        lock.lock();
+        try {
+            return debit(amount);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        transactions.add(withdrawalOf(amount, clock.now()));
-        return success();
+    /**
+     * Posts a batch of deposits and withdrawals in order, as if each had been made
+     * individually, but under a single acquisition of the account's lock and with
+     * one reading of the clock for the whole batch.
+     *
+     * @return the result of each posting, in the order given
+     */
+    public List<Result> post(List<Posting> postings) {
+        return post(postings, ONCE_PER_BATCH);
+    }
+
+    public List<Result> post(List<Posting> postings, Posting.Stamping stamping) {
+        Result[] results = new Result[postings.size()];
+        lock.lock();
+        try {
+            ledger.ensureCapacity(postings.size());
+            Instant batchTime = stamping == PER_ENTRY ? null : clock.now();
+            long running = balance;
+            try {
+                for (int i = 0; i < results.length; i++) {
+                    Posting posting = postings.get(i);
+                    if (posting.canBeAppliedTo(running - reserved)) {
+                        Transaction transaction = posting.at(batchTime == null ? clock.now() : batchTime);
+                        ledger.append(transaction);
+                        running = transaction.against(running);
+                        index.appended(ledger.size(), running, transaction.getDateTime());
+                        results[i] = success();
+                    } else {
+                        results[i] = failure();
+                    }
+                }
+            } finally {
+                balance = running;
+                available = running - reserved;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Arrays.asList(results);
     }
 
-    public void transfer(Money amount, Account receiver) {
-        Result withdrawal = withdraw(amount);
-        if (withdrawal.succeeded()) {
-            receiver.deposit(amount);
+    public Result transfer(Money amount, Account receiver) {
+        Account first = lockOrder < receiver.lockOrder ? this : receiver;
+        Account second = first == this ? receiver : this;
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                Result withdrawal = debit(amount);
+                if (withdrawal.succeeded()) {
+                    receiver.record(depositOf(amount, receiver.clock.now()));
+                }
+                return withdrawal;
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+    }
+
+    /**
+     * The first phase of a transfer between accounts that cannot be locked together:
+     * holds the amount back from the balance and later withdrawals without yet
+     * recording a withdrawal, to be settled with {@link #commitReservation} once the receiver has
+     * been credited, or returned with {@link #releaseReservation} if it cannot be.
+     */
+    public Result reserve(Money amount) {
+        lock.lock();
+        try {
+            if (balance - reserved < amount.toLong())
+                return failure();
+            reserved += amount.toLong();
+            available = balance - reserved;
+            return success();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Withdraws an amount held back by {@link #reserve}.
+     */
+    public void commitReservation(Money amount) {
+        lock.lock();
+        try {
+            // unreserved without publishing, so the amount never reappears in the available balance before it is withdrawn
+            unreserve(amount);
+            record(withdrawalOf(amount, clock.now()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releaseReservation(Money amount) {
+        lock.lock();
+        try {
+            unreserve(amount);
+            available = balance - reserved;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -75,8 +244,157 @@ public class Account {
         return writer.toString();
     }
 
+    /**
+     * Streams the transactions made up to the time of the call; any made while
+     * the stream is being consumed are not included.
+     */
     public Stream<Transaction> transactions() {
-    	return transactions.stream();
+    	return IntStream.range(0, transactionCount()).mapToObj(this::transactionAt);
 	}
 
+    /**
+     * The balance as it stood at the given instant, including any transactions made at that instant.
+     */
+    public Money balanceAt(Instant instant) {
+        return amountOf(balanceUpTo(instant, true));
+    }
+
+    /**
+     * Streams the transactions made from {@code from}, inclusive, up to {@code to}, exclusive.
+     * While transactions have been made in time order this is found by binary search, so
+     * costs O(log n) plus the transactions returned.
+     */
+    public Stream<Transaction> transactionsBetween(Instant from, Instant to) {
+        int first;
+        int last;
+        lock.lock();
+        try {
+            if (!index.isChronological()) {
+                return transactions().filter(transaction ->
+                    !transaction.getDateTime().isBefore(from) && transaction.getDateTime().isBefore(to));
+            }
+            first = countUpTo(from, false);
+            last = Math.max(first, countUpTo(to, false));
+        } finally {
+            lock.unlock();
+        }
+        return IntStream.range(first, last).mapToObj(this::transactionAt);
+    }
+
+    /**
+     * The balance before any transactions made at or after the given instant.
+     */
+    long balanceBefore(Instant instant) {
+        return balanceUpTo(instant, false);
+    }
+
+    int transactionCount() {
+        lock.lock();
+        try {
+            return ledger.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The amount held back by {@link #reserve} for transfers still in flight.
+     */
+    long reserved() {
+        lock.lock();
+        try {
+            return reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The signed amount of each transaction made so far, positive for deposits and
+     * negative for withdrawals, in ledger order.
+     */
+    long[] signedAmounts() {
+        lock.lock();
+        try {
+            long[] amounts = new long[ledger.size()];
+            ledger.copySignedAmounts(amounts, amounts.length);
+            return amounts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long balanceUpTo(Instant instant, boolean inclusive) {
+        lock.lock();
+        try {
+            if (!index.isChronological()) {
+                long running = 0;
+                for (int i = 0; i < ledger.size(); i++) {
+                    Transaction transaction = ledger.get(i);
+                    if (isUpTo(transaction.getDateTime(), instant, inclusive))
+                        running = transaction.against(running);
+                }
+                return running;
+            }
+            int count = countUpTo(instant, inclusive);
+            long running = index.checkpointFor(count);
+            for (int i = count - count % LedgerIndex.CHECKPOINT_INTERVAL; i < count; i++)
+                running += ledger.signedAmountAt(i);
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of leading ledger entries made before the given instant, or at it if
+     * {@code inclusive}; only meaningful while the ledger is in time order.
+     */
+    private int countUpTo(Instant instant, boolean inclusive) {
+        int low = 0;
+        int high = ledger.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isUpTo(ledger.get(middle).getDateTime(), instant, inclusive))
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private static boolean isUpTo(Instant dateTime, Instant instant, boolean inclusive) {
+        return dateTime.isBefore(instant) || (inclusive && dateTime.equals(instant));
+    }
+
+    private Transaction transactionAt(int index) {
+        lock.lock();
+        try {
+            return ledger.get(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result debit(Money amount) {
+        if (balance - reserved < amount.toLong())
+            return failure();
+
+        record(withdrawalOf(amount, clock.now()));
+        return success();
+    }
+
+    private void unreserve(Money amount) {
+        if (amount.toLong() > reserved)
+            throw new IllegalStateException("Only " + amountOf(reserved) + " is reserved, not " + amount);
+        reserved -= amount.toLong();
+    }
+
+    private void record(Transaction transaction) {
+        ledger.append(transaction);
+        balance = transaction.against(balance);
+        available = balance - reserved;
+        index.appended(ledger.size(), balance, transaction.getDateTime());
+    }
+
 }
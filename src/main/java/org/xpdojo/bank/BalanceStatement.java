@@ -21,9 +21,8 @@ import java.io.IOException;
 import java.io.Writer;
 import java.time.Instant;
 
-import static java.time.LocalDateTime.ofInstant;
-import static java.time.ZoneOffset.UTC;
-import static java.time.format.DateTimeFormatter.ofPattern;
+import static org.xpdojo.bank.Formats.SHORT_DATE;
+import static org.xpdojo.bank.Formats.TIME;
 
 public class BalanceStatement implements Statement {
 
@@ -60,11 +59,11 @@ public class BalanceStatement implements Statement {
 	}
 	
 	private String getDate(Instant instant) {
-		return ofPattern("dd/MM/yy").format(ofInstant(instant, UTC));
+		return SHORT_DATE.format(instant);
 	}
 	
 	private String getTime(Instant instant) {
-		return ofPattern("HH:mm").format(ofInstant(instant, UTC));
+		return TIME.format(instant);
 	}
 	
 	private String balance(Account account) {
@@ -73,7 +72,7 @@ public class BalanceStatement implements Statement {
 	}
 
 	private static String padLeft(String value, int amount) {
-		return String.format("%" + amount + "s", value);
+		return Formats.padLeft(new StringBuilder(amount), value, amount).toString();
 	}
 	
 	private String footer() {
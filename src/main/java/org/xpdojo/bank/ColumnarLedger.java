@@ -0,0 +1,154 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.xpdojo.bank.Money.amountOf;
+import static org.xpdojo.bank.Transaction.Deposit.depositOf;
+import static org.xpdojo.bank.Transaction.Withdraw.withdrawalOf;
+
+/**
+ * A {@link Ledger} that stores transactions column by column in primitive arrays
+ * (signed amount, epoch nanoseconds and kind) rather than as objects, at roughly
+ * seventeen bytes an entry. {@link Transaction}s are only created when read.
+ * <p>
+ * Columns grow a fixed-size chunk at a time so that appending never copies
+ * existing entries. Timestamps must lie within about 292 years of the epoch.
+ */
+public class ColumnarLedger implements Ledger {
+
+	static final byte DEPOSIT = 1;
+	static final byte WITHDRAWAL = 2;
+
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private long[][] amounts = new long[1][];
+	private long[][] times = new long[1][];
+	private byte[][] kinds = new byte[1][];
+	private int size;
+
+	@Override
+	public void append(Transaction transaction) {
+		long amount = transaction.getAmount().toLong();
+		if (transaction instanceof Transaction.Deposit)
+			append(DEPOSIT, amount, epochNanos(transaction.getDateTime()));
+		else
+			append(WITHDRAWAL, -amount, epochNanos(transaction.getDateTime()));
+	}
+
+	/**
+	 * Appends an entry without going through a {@link Transaction}; the amount is
+	 * signed, so negative for a withdrawal.
+	 */
+	void append(byte kind, long signedAmount, long epochNanos) {
+		int chunk = size >>> CHUNK_SHIFT;
+		int offset = size & CHUNK_MASK;
+		if (offset == 0)
+			ensureChunk(chunk);
+		amounts[chunk][offset] = signedAmount;
+		times[chunk][offset] = epochNanos;
+		kinds[chunk][offset] = kind;
+		size++;
+	}
+
+	@Override
+	public void ensureCapacity(int additional) {
+		if (additional <= 0)
+			return;
+		int lastChunk = Math.addExact(size, additional - 1) >>> CHUNK_SHIFT;
+		for (int chunk = size >>> CHUNK_SHIFT; chunk <= lastChunk; chunk++)
+			ensureChunk(chunk);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Transaction get(int index) {
+		checkIndex(index);
+		byte kind = kindAt(index);
+		Instant dateTime = instantOf(epochNanosAt(index));
+		if (kind == DEPOSIT)
+			return depositOf(amountOf(signedAmountAt(index)), dateTime);
+		return withdrawalOf(amountOf(-signedAmountAt(index)), dateTime);
+	}
+
+	@Override
+	public Stream<Transaction> transactions() {
+		return IntStream.range(0, size).mapToObj(this::get);
+	}
+
+	/**
+	 * Copies the signed amounts of the first {@code count} entries into {@code into}, a chunk at a time.
+	 */
+	@Override
+	public void copySignedAmounts(long[] into, int count) {
+		for (int copied = 0; copied < count; copied += CHUNK_SIZE)
+			System.arraycopy(amounts[copied >>> CHUNK_SHIFT], 0, into, copied, Math.min(CHUNK_SIZE, count - copied));
+	}
+
+	byte kindAt(int index) {
+		return kinds[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	@Override
+	public long signedAmountAt(int index) {
+		return amounts[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	@Override
+	public long epochNanosAt(int index) {
+		return times[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	private void ensureChunk(int chunk) {
+		if (chunk < amounts.length && amounts[chunk] != null)
+			return;
+		if (chunk >= amounts.length) {
+			int capacity = Math.max(chunk + 1, amounts.length * 2);
+			amounts = Arrays.copyOf(amounts, capacity);
+			times = Arrays.copyOf(times, capacity);
+			kinds = Arrays.copyOf(kinds, capacity);
+		}
+		amounts[chunk] = new long[CHUNK_SIZE];
+		times[chunk] = new long[CHUNK_SIZE];
+		kinds[chunk] = new byte[CHUNK_SIZE];
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for ledger of " + size);
+	}
+
+	static long epochNanos(Instant instant) {
+		return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+	}
+
+	static Instant instantOf(long epochNanos) {
+		return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.time.format.DateTimeFormatter;
+
+import static java.time.ZoneOffset.UTC;
+import static java.time.format.DateTimeFormatter.ofPattern;
+
+/**
+ * Formatting shared by {@link Money} and the statements. The date formatters are
+ * immutable and thread-safe so are built once, and money is formatted by hand
+ * straight into a {@link StringBuilder}, giving the same output as a
+ * {@code DecimalFormat("#,###.00")}.
+ */
+final class Formats {
+
+	static final DateTimeFormatter DATE = ofPattern("dd/MM/yyyy").withZone(UTC);
+	static final DateTimeFormatter SHORT_DATE = ofPattern("dd/MM/yy").withZone(UTC);
+	static final DateTimeFormatter TIME = ofPattern("HH:mm").withZone(UTC);
+
+	private Formats() {
+	}
+
+	static String money(long amount) {
+		return appendMoney(new StringBuilder(32), amount).toString();
+	}
+
+	static StringBuilder appendMoney(StringBuilder out, long amount) {
+		if (amount < 0)
+			out.append('-');
+		// work with the negative magnitude, which unlike the positive one always fits in a long
+		long negative = amount < 0 ? amount : -amount;
+		int digits = 0;
+		for (long remaining = negative; remaining != 0; remaining /= 10)
+			digits++;
+		int end = out.length() + digits + (digits - 1) / 3;
+		out.setLength(end);
+		for (int written = 0; negative != 0; written++) {
+			if (written > 0 && written % 3 == 0)
+				out.setCharAt(--end, ',');
+			out.setCharAt(--end, (char) ('0' - negative % 10));
+			negative /= 10;
+		}
+		return out.append(".00");
+	}
+
+	static StringBuilder padLeft(StringBuilder out, CharSequence value, int width) {
+		for (int i = value.length(); i < width; i++)
+			out.append(' ');
+		return out.append(value);
+	}
+}
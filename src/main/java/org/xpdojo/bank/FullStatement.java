@@ -19,62 +19,61 @@ package org.xpdojo.bank;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Stream;
-
-import static java.time.LocalDateTime.ofInstant;
-import static java.time.ZoneOffset.UTC;
-import static java.time.format.DateTimeFormatter.ofPattern;
-import static java.util.stream.Collectors.joining;
+import java.util.Arrays;
+import java.util.Iterator;
 
+/**
+ * Writes every transaction on the account with a running balance, followed by the
+ * closing balance. Lines are written to the writer as the ledger is walked, so the
+ * statement is never held in memory as a whole.
+ * <p>
+ * The closing balance is the sum of the transactions, which counts money reserved
+ * for a transfer still in flight, whereas {@link Account#balance()} leaves it out
+ * until the transfer is settled. While anything is reserved the statement says so
+ * on two further lines, giving the amount reserved and the balance available.
+ * <p>
+ * For accounts with at least {@code parallelThreshold} transactions the running
+ * balances are first worked out on all cores as a parallel prefix sum over the
+ * signed amounts, leaving only the formatting to be done line by line.
+ */
 public class FullStatement implements Statement {
 
-	private static final String NEW_LINE = System.getProperty("line.separator");
+	private static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
 
-	@Override
-	public void write(Account account, Writer writer) throws IOException {
-		List<StatementLine> lines = runningBalance(account.transactions());
-		writer
-			.append(lines.stream().map(toStatement()).collect(joining(NEW_LINE)))
-			.append("\n\nbalance: ")
-			.append(account.balance().toString());
-	}
+	private final int parallelThreshold;
 
-	private List<StatementLine> runningBalance(Stream<Transaction> transactions) {
-		List<StatementLine> accumulator = new ArrayList<>();
-		transactions.forEach(transaction -> {
-			if (accumulator.isEmpty())
-				accumulator.add(new StatementLine(transaction, transaction.getAmount()));
-			else {
-				StatementLine previous = accumulator.get(accumulator.size() - 1);
-				accumulator.add(new StatementLine(transaction, transaction.against(previous.balance)));
-			}
-		});
-		return accumulator;
+	public FullStatement() {
+		this(DEFAULT_PARALLEL_THRESHOLD);
 	}
 
-	private Function<StatementLine, String> toStatement() {
-		return line -> {
-			LocalDateTime dateTime = ofInstant(line.transaction.getDateTime(), UTC);
-			String date = ofPattern("dd/MM/yyyy").format(dateTime);
-			String time = ofPattern("HH:mm").format(dateTime);
-			String direction = line.transaction.getClass().getSimpleName();
-			String amount = line.transaction.getAmount().toString();
-			String balance = line.balance.toString();
-			return date + " " + time + " " + direction + " " + amount + " " + balance;
-		};
+	public FullStatement(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
 	}
 
-	private class StatementLine {
-		private final Transaction transaction;
-		private final Money balance;
-
-		public StatementLine(Transaction transaction, Money balance) {
-			this.transaction = transaction;
-			this.balance = balance;
+	@Override
+	public void write(Account account, Writer writer) throws IOException {
+		long[] balances = account.transactionCount() < parallelThreshold ? null : runningBalances(account);
+		StatementWriter statement = new StatementWriter(writer);
+		long balance = 0;
+		Iterator<Transaction> transactions = balances == null
+			? account.transactions().iterator()
+			: account.transactions().limit(balances.length).iterator();
+		for (int index = 0; transactions.hasNext(); index++) {
+			Transaction transaction = transactions.next();
+			balance = balances == null ? transaction.against(balance) : balances[index];
+			statement.transaction(transaction, balance);
+		}
+		statement.balance("\n\nbalance: ", balance);
+		long reserved = account.reserved();
+		if (reserved != 0) {
+			statement.balance("\nreserved: ", reserved);
+			statement.balance("\navailable: ", balance - reserved);
 		}
 	}
+
+	private static long[] runningBalances(Account account) {
+		long[] balances = account.signedAmounts();
+		Arrays.parallelPrefix(balances, Long::sum);
+		return balances;
+	}
 }
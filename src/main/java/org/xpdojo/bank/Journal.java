@@ -0,0 +1,529 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * An append-only, memory-mapped journal of the transactions made against accounts,
+ * from which the accounts can be rebuilt after a restart.
+ * <p>
+ * Each transaction is a fixed-width record of account id, signed amount, epoch
+ * nanoseconds and kind, appended to a segment file of {@code recordsPerSegment}
+ * records; a new segment is started when the current one is full. Appending only
+ * writes to the mapped segment. Records are made durable by {@link #sync()}, and
+ * concurrent callers share a single force of the segments to disk (group commit).
+ * <p>
+ * Until a sync the operating system may write the mapped pages back in any order,
+ * so after a crash a later record can be on disk while an earlier one is not. Each
+ * record therefore carries a check over its fields and its position, and opening
+ * the journal scans forward from the latest snapshot, which only ever covers
+ * synced records, to the first record that is missing or fails its check. That is
+ * where the journal ends: anything written after it is cleared, never replayed.
+ * <p>
+ * Accounts that journal their transactions are created with {@link #newAccount} or
+ * recovered with {@link #recover}, which must be called once, straight after
+ * opening an existing journal, and before any new account is opened in it. An
+ * account id can only be opened once.
+ * <p>
+ * {@link #snapshot()} folds the journal into a {@link Snapshot} of every balance and
+ * moves the segments it covers into an {@code archive} directory, so recovery only
+ * replays the records since the latest snapshot. The archived segments remain the
+ * cold store for {@link #history}. Snapshots are taken when the caller asks, or on
+ * a fixed interval once {@link #snapshotEvery} has been called.
+ */
+public final class Journal implements Closeable {
+
+	static final int RECORD_SIZE = 32;
+
+	private static final int ACCOUNT_OFFSET = 0;
+	private static final int AMOUNT_OFFSET = 8;
+	private static final int TIME_OFFSET = 16;
+	private static final int KIND_OFFSET = 24;
+	private static final int CHECK_OFFSET = 28;
+	private static final byte NO_RECORD = 0;
+	private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+	private static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+
+	private final Path directory;
+	private final Path archive;
+	private final int recordsPerSegment;
+	private final List<MappedByteBuffer> unsynced = new ArrayList<>();
+	private final Object syncLock = new Object();
+	private final Object snapshotLock = new Object();
+	private final Object accountsLock = new Object();
+
+	private MappedByteBuffer segment;
+	private int segmentIndex;
+	private long next;
+	private volatile long durable;
+	// null until the journal has been recovered or its first account opened
+	private LongMap<JournalledLedger> accounts;
+	// guarded by snapshotLock
+	private ScheduledExecutorService snapshots;
+
+	private Journal(Path directory, int recordsPerSegment) throws IOException {
+		this.directory = directory;
+		this.archive = directory.resolve("archive");
+		this.recordsPerSegment = recordsPerSegment;
+		next = endOfRecords(Math.max(0, lastIndex(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)));
+		clearAfter(next);
+		// a full segment stays current until the next append rolls over from it
+		segmentIndex = (int) (Math.max(0, next - 1) / recordsPerSegment);
+		segment = map(segmentIndex);
+		unsynced.add(segment);
+		durable = next;
+	}
+
+	public static Journal open(Path directory) throws IOException {
+		return open(directory, DEFAULT_RECORDS_PER_SEGMENT);
+	}
+
+	/**
+	 * @param recordsPerSegment the size of each segment file in records; an existing
+	 *                          journal must be reopened with the size it was created with
+	 */
+	public static Journal open(Path directory, int recordsPerSegment) throws IOException {
+		Files.createDirectories(directory);
+		return new Journal(directory, recordsPerSegment);
+	}
+
+	/**
+	 * Creates an account whose transactions, starting with its opening balance, are journalled.
+	 *
+	 * @throws IllegalStateException if the account is already in the journal, or the
+	 *                               journal has records and has not been recovered
+	 */
+	public Account newAccount(long accountId, Money balance, Clock clock) {
+		JournalledLedger ledger = new JournalledLedger(this, accountId);
+		synchronized (accountsLock) {
+			if (accounts == null) {
+				if (size() > 0)
+					throw new IllegalStateException("Recover the journal in " + directory + " before opening new accounts");
+				accounts = new LongMap<>();
+			}
+			if (accounts.get(accountId) != null)
+				throw new IllegalStateException("Account " + accountId + " is already in the journal");
+			accounts.put(accountId, ledger);
+		}
+		return Account.accountWithBalance(balance, clock, ledger);
+	}
+
+	/**
+	 * Rebuilds every account in the journal, keyed by account id in the order the
+	 * accounts were first journalled. Each account starts from its balance in the
+	 * latest snapshot, brought forward as a single deposit, and then the records
+	 * since the snapshot are read straight from the mapped segments into its
+	 * columnar ledger. The recovered accounts go on journalling new transactions here.
+	 *
+	 * @throws IllegalStateException if the journal has already been recovered or had accounts opened in it
+	 */
+	public Map<Long, Account> recover(Clock clock) throws IOException {
+		Recovery recovery = new Recovery();
+		synchronized (accountsLock) {
+			if (accounts != null)
+				throw new IllegalStateException("The journal in " + directory + " already has its accounts");
+			Snapshot snapshot = latestSnapshot();
+			for (Snapshot.Checkpoint checkpoint : snapshot.checkpoints())
+				recovery.ledgerFor(checkpoint.accountId).load(ColumnarLedger.DEPOSIT, checkpoint.balance, checkpoint.epochNanos);
+			forEachRecord(snapshot.journalPosition(), size(), recovery);
+			accounts = recovery.ledgers;
+		}
+
+		Map<Long, Account> accounts = new LinkedHashMap<>();
+		for (JournalledLedger ledger : recovery.inOrder)
+			accounts.put(ledger.accountId(), Account.restore(ledger, clock));
+		return accounts;
+	}
+
+	/**
+	 * Folds the records since the latest snapshot into a new one, then archives the
+	 * segments it wholly covers and deletes the older snapshot. The journal is synced
+	 * first, so a snapshot never covers records that could be lost in a crash.
+	 * <p>
+	 * Snapshots are taken one at a time under a lock of their own, so two callers
+	 * never write the same snapshot file or move the same segments at once;
+	 * appending does not take that lock and carries on while this runs.
+	 *
+	 * @return the new snapshot file
+	 */
+	public Path snapshot() throws IOException {
+		synchronized (snapshotLock) {
+			return snapshotHoldingLock();
+		}
+	}
+
+	/**
+	 * Takes a snapshot every {@code interval} on a background thread until the journal
+	 * is closed, skipping any interval in which nothing has been appended. A snapshot
+	 * that fails is logged and tried again at the next interval.
+	 *
+	 * @throws IllegalStateException if snapshots are already scheduled
+	 */
+	public void snapshotEvery(Duration interval) {
+		synchronized (snapshotLock) {
+			if (snapshots != null)
+				throw new IllegalStateException("Snapshots of the journal in " + directory + " are already scheduled");
+			snapshots = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "journal-snapshots");
+				thread.setDaemon(true);
+				return thread;
+			});
+			snapshots.scheduleWithFixedDelay(this::scheduledSnapshot, interval.toNanos(), interval.toNanos(), NANOSECONDS);
+		}
+	}
+
+	private void scheduledSnapshot() {
+		try {
+			synchronized (snapshotLock) {
+				if (size() > Math.max(0, lastIndex(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)))
+					snapshotHoldingLock();
+			}
+		} catch (IOException | RuntimeException e) {
+			// an exception escaping would cancel the schedule
+			LOG.warn("Scheduled snapshot of the journal in {} failed", directory, e);
+		}
+	}
+
+	private Path snapshotHoldingLock() throws IOException {
+		long position = size();
+		sync(position - 1);
+		Path previous = latestSnapshotPath();
+		Snapshot snapshot = previous == null ? new Snapshot() : Snapshot.read(previous);
+		forEachRecord(snapshot.journalPosition(), position, snapshot::apply);
+		snapshot.advanceTo(position);
+		Path file = directory.resolve(String.format(SNAPSHOT_PREFIX + "%019d" + SNAPSHOT_SUFFIX, position));
+		snapshot.write(file);
+		if (previous != null && !previous.equals(file))
+			Files.delete(previous);
+
+		int current;
+		synchronized (this) {
+			current = segmentIndex;
+		}
+		int covered = (int) Math.min(position / recordsPerSegment, current);
+		Files.createDirectories(archive);
+		for (int index = 0; index < covered; index++) {
+			Path live = segmentPath(directory, index);
+			if (Files.exists(live))
+				Files.move(live, segmentPath(archive, index));
+		}
+		return file;
+	}
+
+	/**
+	 * Rebuilds the complete history of one account from the archived and live
+	 * segments, for statements reaching back before the latest snapshot. This reads
+	 * the whole journal, and the account it returns is not journalled.
+	 *
+	 * @throws IllegalArgumentException if the account has never been journalled
+	 */
+	public Account history(long accountId, Clock clock) throws IOException {
+		ColumnarLedger ledger = new ColumnarLedger();
+		forEachRecord(0, size(), (id, kind, signedAmount, epochNanos) -> {
+			if (id == accountId)
+				ledger.append(kind, signedAmount, epochNanos);
+		});
+		if (ledger.size() == 0)
+			throw new IllegalArgumentException("No account " + accountId + " in the journal");
+		return Account.restore(ledger, clock);
+	}
+
+	/**
+	 * @return the position of the record in the journal, which can be passed to {@link #sync(long)}
+	 */
+	synchronized long append(long accountId, byte kind, long signedAmount, long epochNanos) {
+		int offset = (int) (next % recordsPerSegment) * RECORD_SIZE;
+		if (offset == 0 && next > 0)
+			roll();
+		segment.putLong(offset + ACCOUNT_OFFSET, accountId);
+		segment.putLong(offset + AMOUNT_OFFSET, signedAmount);
+		segment.putLong(offset + TIME_OFFSET, epochNanos);
+		segment.put(offset + KIND_OFFSET, kind);
+		segment.putInt(offset + CHECK_OFFSET, check(next, accountId, kind, signedAmount, epochNanos));
+		return next++;
+	}
+
+	/**
+	 * Makes every record appended so far durable.
+	 */
+	public void sync() {
+		long position;
+		synchronized (this) {
+			position = next - 1;
+		}
+		sync(position);
+	}
+
+	/**
+	 * Makes the records up to and including {@code position} durable. If another
+	 * thread is already syncing, this waits for it and only forces the segments
+	 * again if that did not cover {@code position}.
+	 */
+	public void sync(long position) {
+		if (position < durable)
+			return;
+		synchronized (syncLock) {
+			if (position < durable)
+				return;
+			List<MappedByteBuffer> toForce;
+			long upTo;
+			synchronized (this) {
+				upTo = next;
+				toForce = new ArrayList<>(unsynced);
+				unsynced.clear();
+				unsynced.add(segment);
+			}
+			for (MappedByteBuffer buffer : toForce)
+				buffer.force();
+			durable = upTo;
+		}
+	}
+
+	/**
+	 * The number of records in the journal.
+	 */
+	public synchronized long size() {
+		return next;
+	}
+
+	/**
+	 * Stops any scheduled snapshots, letting one that is under way finish, and syncs the journal.
+	 */
+	@Override
+	public void close() {
+		ScheduledExecutorService scheduled;
+		synchronized (snapshotLock) {
+			scheduled = snapshots;
+			snapshots = null;
+		}
+		if (scheduled != null) {
+			scheduled.shutdown();
+			try {
+				scheduled.awaitTermination(30, SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		sync();
+	}
+
+	private void roll() {
+		try {
+			segmentIndex = (int) (next / recordsPerSegment);
+			segment = map(segmentIndex);
+			unsynced.add(segment);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not start a new journal segment in " + directory, e);
+		}
+	}
+
+	private MappedByteBuffer map(int segmentIndex) throws IOException {
+		try (FileChannel channel = FileChannel.open(segmentPath(directory, segmentIndex), CREATE, READ, WRITE)) {
+			MappedByteBuffer buffer = channel.map(READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return buffer;
+		}
+	}
+
+	/**
+	 * The position of the first record from {@code from} on that is missing or fails its check.
+	 */
+	private long endOfRecords(long from) throws IOException {
+		long position = from;
+		while (true) {
+			int index = (int) (position / recordsPerSegment);
+			if (!Files.exists(segmentPath(directory, index)) && !Files.exists(segmentPath(archive, index)))
+				return position;
+			MappedByteBuffer records = mapForReading(index);
+			for (int record = (int) (position % recordsPerSegment); record < recordsPerSegment; record++, position++) {
+				if (!isValid(records, record * RECORD_SIZE, position))
+					return position;
+			}
+		}
+	}
+
+	/**
+	 * Clears whatever was written at or after {@code end}, in its segment and any later
+	 * ones, so that no record beyond a gap can be mistaken for part of the journal.
+	 */
+	private void clearAfter(long end) throws IOException {
+		int endIndex = (int) (end / recordsPerSegment);
+		long lastIndex = lastIndex(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+		for (long index = lastIndex; index > endIndex; index--)
+			Files.deleteIfExists(segmentPath(directory, (int) index));
+		if (lastIndex < endIndex)
+			return;
+		MappedByteBuffer records = map(endIndex);
+		boolean cleared = false;
+		for (int offset = (int) (end % recordsPerSegment) * RECORD_SIZE; offset < records.capacity(); offset += RECORD_SIZE) {
+			if (records.get(offset + KIND_OFFSET) != NO_RECORD || records.getInt(offset + CHECK_OFFSET) != 0) {
+				for (int i = 0; i < RECORD_SIZE; i += Long.BYTES)
+					records.putLong(offset + i, 0);
+				cleared = true;
+			}
+		}
+		if (cleared)
+			records.force();
+	}
+
+	private static boolean isValid(MappedByteBuffer records, int offset, long position) {
+		byte kind = records.get(offset + KIND_OFFSET);
+		return kind != NO_RECORD && records.getInt(offset + CHECK_OFFSET) == check(position, records.getLong(offset + ACCOUNT_OFFSET),
+				kind, records.getLong(offset + AMOUNT_OFFSET), records.getLong(offset + TIME_OFFSET));
+	}
+
+	/**
+	 * A hash of a record's fields and position, so that a record left half written,
+	 * or one written at another position, fails to match.
+	 */
+	static int check(long position, long accountId, byte kind, long signedAmount, long epochNanos) {
+		long hash = (position + 1) * 0x9E3779B97F4A7C15L;
+		hash = (hash ^ accountId) * 0xBF58476D1CE4E5B9L;
+		hash = (hash ^ kind) * 0x94D049BB133111EBL;
+		hash = (hash ^ signedAmount) * 0xBF58476D1CE4E5B9L;
+		hash = (hash ^ epochNanos) * 0x94D049BB133111EBL;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * Maps a segment for reading, from the archive once it has been moved there.
+	 */
+	private MappedByteBuffer mapForReading(int segmentIndex) throws IOException {
+		try {
+			return mapForReading(segmentPath(directory, segmentIndex));
+		} catch (NoSuchFileException e) {
+			// segments only ever move from the live directory to the archive, so one a snapshot has just moved is there
+			return mapForReading(segmentPath(archive, segmentIndex));
+		}
+	}
+
+	private MappedByteBuffer mapForReading(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, READ)) {
+			MappedByteBuffer buffer = channel.map(READ_ONLY, 0, (long) recordsPerSegment * RECORD_SIZE);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return buffer;
+		}
+	}
+
+	private void forEachRecord(long from, long to, RecordVisitor visitor) throws IOException {
+		long position = from;
+		while (position < to) {
+			int index = (int) (position / recordsPerSegment);
+			long segmentStart = (long) index * recordsPerSegment;
+			MappedByteBuffer records = mapForReading(index);
+			int last = (int) Math.min(recordsPerSegment, to - segmentStart);
+			for (int record = (int) (position - segmentStart); record < last; record++) {
+				int offset = record * RECORD_SIZE;
+				visitor.record(records.getLong(offset + ACCOUNT_OFFSET), records.get(offset + KIND_OFFSET),
+						records.getLong(offset + AMOUNT_OFFSET), records.getLong(offset + TIME_OFFSET));
+			}
+			position = segmentStart + last;
+		}
+	}
+
+	private Snapshot latestSnapshot() throws IOException {
+		Path path = latestSnapshotPath();
+		return path == null ? new Snapshot() : Snapshot.read(path);
+	}
+
+	private Path latestSnapshotPath() throws IOException {
+		long position = lastIndex(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		return position < 0 ? null : directory.resolve(String.format(SNAPSHOT_PREFIX + "%019d" + SNAPSHOT_SUFFIX, position));
+	}
+
+	/**
+	 * The highest number among the files named {@code prefix<number>suffix} in the directory, or -1 if there are none.
+	 */
+	private static long lastIndex(Path directory, String prefix, String suffix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+					.mapToLong(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+					.max()
+					.orElse(-1);
+		}
+	}
+
+	private static Path segmentPath(Path directory, int segmentIndex) {
+		return directory.resolve(String.format(SEGMENT_PREFIX + "%010d" + SEGMENT_SUFFIX, segmentIndex));
+	}
+
+	@FunctionalInterface
+	private interface RecordVisitor {
+		void record(long accountId, byte kind, long signedAmount, long epochNanos);
+	}
+
+	/**
+	 * Loads records into a journalled ledger per account, remembering the last
+	 * account seen since consecutive records are often for the same one.
+	 */
+	private final class Recovery implements RecordVisitor {
+		private final LongMap<JournalledLedger> ledgers = new LongMap<>();
+		private final List<JournalledLedger> inOrder = new ArrayList<>();
+		private JournalledLedger last;
+
+		@Override
+		public void record(long accountId, byte kind, long signedAmount, long epochNanos) {
+			if (last == null || last.accountId() != accountId)
+				last = ledgerFor(accountId);
+			last.load(kind, signedAmount, epochNanos);
+		}
+
+		JournalledLedger ledgerFor(long accountId) {
+			JournalledLedger ledger = ledgers.get(accountId);
+			if (ledger == null) {
+				ledger = new JournalledLedger(Journal.this, accountId);
+				ledgers.put(accountId, ledger);
+				inOrder.add(ledger);
+			}
+			return ledger;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+/**
+ * A {@link ColumnarLedger} that writes each entry to a {@link Journal} before adding it.
+ */
+final class JournalledLedger extends ColumnarLedger {
+
+	private final Journal journal;
+	private final long accountId;
+
+	JournalledLedger(Journal journal, long accountId) {
+		this.journal = journal;
+		this.accountId = accountId;
+	}
+
+	long accountId() {
+		return accountId;
+	}
+
+	@Override
+	void append(byte kind, long signedAmount, long epochNanos) {
+		journal.append(accountId, kind, signedAmount, epochNanos);
+		super.append(kind, signedAmount, epochNanos);
+	}
+
+	/**
+	 * Adds an entry read back from the journal, without journalling it again.
+	 */
+	void load(byte kind, long signedAmount, long epochNanos) {
+		super.append(kind, signedAmount, epochNanos);
+	}
+}
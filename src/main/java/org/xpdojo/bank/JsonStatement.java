@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Writes the same content as a {@link PeriodStatement} as a JSON object:
+ * <pre>
+ * {"openingBalance":0,"transactions":[
+ * {"date":"2019-02-23T10:15:00Z","type":"Deposit","amount":10,"balance":10}
+ * ],"closingBalance":10,"more":false}
+ * </pre>
+ * Amounts are whole numbers of the account's currency, as held by {@link Money},
+ * and {@code more} says whether the period has transactions after the page. Like
+ * the other statements, it is written a transaction at a time through a {@link StatementWriter}.
+ */
+public class JsonStatement implements Statement {
+
+	private final Instant from;
+	private final Instant to;
+	private final long offset;
+	private final long limit;
+
+	public JsonStatement() {
+		this(Instant.MIN, Instant.MAX);
+	}
+
+	public JsonStatement(Instant from, Instant to) {
+		this(from, to, 0, Long.MAX_VALUE);
+	}
+
+	public JsonStatement(Instant from, Instant to, long offset, long limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("A page cannot have a negative offset or limit");
+		this.from = from;
+		this.to = to;
+		this.offset = offset;
+		this.limit = limit;
+	}
+
+	@Override
+	public void write(Account account, Writer writer) throws IOException {
+		long balance = account.balanceBefore(from);
+		Iterator<Transaction> transactions = account.transactionsBetween(from, to).iterator();
+		for (long skipped = 0; skipped < offset && transactions.hasNext(); skipped++)
+			balance = transactions.next().against(balance);
+
+		StatementWriter statement = new StatementWriter(writer);
+		StringBuilder line = statement.text();
+		line.append("{\"openingBalance\":").append(balance).append(",\"transactions\":[");
+		for (long written = 0; written < limit && transactions.hasNext(); written++) {
+			Transaction transaction = transactions.next();
+			balance = transaction.against(balance);
+			if (written > 0)
+				line.append(',');
+			line.append("\n{\"date\":\"");
+			DateTimeFormatter.ISO_INSTANT.formatTo(transaction.getDateTime(), line);
+			line.append("\",\"type\":\"").append(transaction.getClass().getSimpleName())
+				.append("\",\"amount\":").append(transaction.getAmount().toLong())
+				.append(",\"balance\":").append(balance).append('}');
+			statement.write();
+		}
+		line.append("\n],\"closingBalance\":").append(balance)
+			.append(",\"more\":").append(transactions.hasNext()).append('}');
+		statement.write();
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.util.stream.Stream;
+
+/**
+ * Append-only store of the transactions made against an {@link Account},
+ * kept in the order they were made.
+ */
+public interface Ledger {
+
+	void append(Transaction transaction);
+
+	/**
+	 * Makes room for the given number of further transactions in one step, ahead of a batch of appends.
+	 */
+	default void ensureCapacity(int additional) {
+	}
+
+	int size();
+
+	Transaction get(int index);
+
+	Stream<Transaction> transactions();
+
+	/**
+	 * The amount of the entry at {@code index}, positive for a deposit and negative for a withdrawal.
+	 */
+	default long signedAmountAt(int index) {
+		return get(index).against(0L);
+	}
+
+	/**
+	 * The time of the entry at {@code index} in nanoseconds since the epoch.
+	 */
+	default long epochNanosAt(int index) {
+		return ColumnarLedger.epochNanos(get(index).getDateTime());
+	}
+
+	/**
+	 * Copies the signed amounts of the first {@code count} entries into {@code into}.
+	 */
+	default void copySignedAmounts(long[] into, int count) {
+		for (int i = 0; i < count; i++)
+			into[i] = signedAmountAt(i);
+	}
+}
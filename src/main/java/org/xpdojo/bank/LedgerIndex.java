@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Index kept alongside an account's {@link Ledger}: the balance after every
+ * {@value #CHECKPOINT_INTERVAL} entries, so that the balance at any point in the
+ * ledger can be found without folding it from the start, and whether entries have
+ * so far been made in time order, so that the ledger can be binary searched by time.
+ */
+final class LedgerIndex {
+
+	static final int CHECKPOINT_INTERVAL = 1024;
+
+	private long[] checkpoints = new long[8];
+	private long latestSecond = Long.MIN_VALUE;
+	private int latestNano;
+	private boolean chronological = true;
+
+	void appended(int size, long balance, Instant dateTime) {
+		appended(size, balance, dateTime.getEpochSecond(), dateTime.getNano());
+	}
+
+	void appended(int size, long balance, long epochSecond, int nano) {
+		if (epochSecond > latestSecond || (epochSecond == latestSecond && nano >= latestNano)) {
+			latestSecond = epochSecond;
+			latestNano = nano;
+		} else {
+			chronological = false;
+		}
+
+		if (size % CHECKPOINT_INTERVAL == 0) {
+			int checkpoint = size / CHECKPOINT_INTERVAL;
+			if (checkpoint == checkpoints.length)
+				checkpoints = Arrays.copyOf(checkpoints, checkpoint * 2);
+			checkpoints[checkpoint] = balance;
+		}
+	}
+
+	boolean isChronological() {
+		return chronological;
+	}
+
+	/**
+	 * The balance after the entries up to the last checkpoint at or before {@code count}
+	 * entries; the remaining {@code count % CHECKPOINT_INTERVAL} entries are still to be applied.
+	 */
+	long checkpointFor(int count) {
+		return checkpoints[count / CHECKPOINT_INTERVAL];
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Ledger} holding each {@link Transaction} as an object in a list.
+ */
+public class ListLedger implements Ledger {
+
+	private final ArrayList<Transaction> transactions = new ArrayList<>();
+
+	@Override
+	public void append(Transaction transaction) {
+		transactions.add(transaction);
+	}
+
+	@Override
+	public void ensureCapacity(int additional) {
+		transactions.ensureCapacity(transactions.size() + additional);
+	}
+
+	@Override
+	public int size() {
+		return transactions.size();
+	}
+
+	@Override
+	public Transaction get(int index) {
+		return transactions.get(index);
+	}
+
+	@Override
+	public Stream<Transaction> transactions() {
+		return transactions.stream();
+	}
+}
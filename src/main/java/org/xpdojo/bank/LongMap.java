@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+/**
+ * A minimal open-addressing map from primitive {@code long} keys to values, so
+ * that looking up an account by id does not box the id. Not thread-safe.
+ */
+final class LongMap<V> {
+
+	private long[] keys = new long[16];
+	private Object[] values = new Object[16];
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		int mask = keys.length - 1;
+		for (int slot = slotOf(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key)
+				return (V) values[slot];
+		}
+		return null;
+	}
+
+	void put(long key, V value) {
+		if (2 * (size + 1) > keys.length)
+			resize();
+		if (insert(keys, values, key, value))
+			size++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static boolean insert(long[] keys, Object[] values, long key, Object value) {
+		int mask = keys.length - 1;
+		int slot = slotOf(key, mask);
+		while (values[slot] != null && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		boolean added = values[slot] == null;
+		keys[slot] = key;
+		values[slot] = value;
+		return added;
+	}
+
+	private void resize() {
+		long[] newKeys = new long[keys.length * 2];
+		Object[] newValues = new Object[values.length * 2];
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (values[slot] != null)
+				insert(newKeys, newValues, keys[slot], values[slot]);
+		}
+		keys = newKeys;
+		values = newValues;
+	}
+
+	private static int slotOf(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
@@ -17,16 +17,24 @@
 
 package org.xpdojo.bank;
 
-import java.text.DecimalFormat;
-import java.util.Objects;
-
 /**
  * Immutable class to represent Money as a concept.
- * This class should have no accessor methods.
+ * This class should have no public accessor methods; {@link #toLong()} is a
+ * package-private view used by the ledger and statements to fold amounts
+ * without allocating.
  */
 public class Money {
 
-    private long amount;
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final Money[] CACHE = new Money[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++)
+            CACHE[i] = new Money(i + CACHE_LOW);
+    }
+
+    private final long amount;
 
     private Money(long amount) {
         this.amount = amount;
@@ -34,25 +42,34 @@ public class Money {
 
     public static final Money ZERO = amountOf(0);
 
+    /**
+     * Small amounts are served from a shared cache, as {@link Long#valueOf(long)} does.
+     */
     public static Money amountOf(long amount) {
+        if (amount >= CACHE_LOW && amount <= CACHE_HIGH)
+            return CACHE[(int) amount - CACHE_LOW];
         return new Money(amount);
     }
 
     public Money plus(Money other) {
-        return new Money(this.amount + other.amount);
+        return amountOf(this.amount + other.amount);
     }
 
     public Money minus(Money other) {
-        return new Money(this.amount - other.amount);
+        return amountOf(this.amount - other.amount);
     }
 
     public boolean isLessThan(Money other) {
         return this.amount < other.amount;
     }
-    
+
+    long toLong() {
+        return amount;
+    }
+
     @Override
     public String toString() {
-        return new DecimalFormat("#,###.00").format(amount);
+        return Formats.money(amount);
     }
 
     @Override
@@ -60,11 +77,11 @@ public class Money {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Money money = (Money) o;
-        return Objects.equals(amount, money.amount);
+        return amount == money.amount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(amount);
+        return Long.hashCode(amount);
     }
 }
@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Iterator;
+
+/**
+ * Writes the transactions made in a period, from {@code from} inclusive up to
+ * {@code to} exclusive, with the balance brought forward at the start of the
+ * period, a running balance on each line and the balance at the end of the period.
+ * <p>
+ * A statement can also be limited to a page of the period's transactions, skipping
+ * the first {@code offset} and writing at most {@code limit}; the opening and
+ * closing balances are then those either side of the page.
+ */
+public class PeriodStatement implements Statement {
+
+	private final Instant from;
+	private final Instant to;
+	private final long offset;
+	private final long limit;
+
+	public PeriodStatement(Instant from, Instant to) {
+		this(from, to, 0, Long.MAX_VALUE);
+	}
+
+	public PeriodStatement(Instant from, Instant to, long offset, long limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("A page cannot have a negative offset or limit");
+		this.from = from;
+		this.to = to;
+		this.offset = offset;
+		this.limit = limit;
+	}
+
+	@Override
+	public void write(Account account, Writer writer) throws IOException {
+		StatementWriter statement = new StatementWriter(writer);
+		long balance = account.balanceBefore(from);
+		Iterator<Transaction> transactions = account.transactionsBetween(from, to).iterator();
+		for (long skipped = 0; skipped < offset && transactions.hasNext(); skipped++)
+			balance = transactions.next().against(balance);
+		statement.balance("opening balance: ", balance);
+		for (long written = 0; written < limit && transactions.hasNext(); written++) {
+			Transaction transaction = transactions.next();
+			balance = transaction.against(balance);
+			statement.transaction(transaction, balance);
+		}
+		statement.balance("\n\nbalance: ", balance);
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.time.Instant;
+
+import static org.xpdojo.bank.Transaction.Deposit.depositOf;
+import static org.xpdojo.bank.Transaction.Withdraw.withdrawalOf;
+
+/**
+ * A deposit or withdrawal waiting to be posted to an {@link Account} as part of a batch,
+ * see {@link Account#post(java.util.List)}.
+ */
+public abstract class Posting {
+
+	/**
+	 * How a batch of postings is stamped with the time it was made.
+	 */
+	public enum Stamping {
+		/** Every posting in the batch shares a single reading of the clock. */
+		ONCE_PER_BATCH,
+		/** The clock is read again for each posting, as for individual deposits and withdrawals. */
+		PER_ENTRY
+	}
+
+	private final Money amount;
+
+	private Posting(Money amount) {
+		this.amount = amount;
+	}
+
+	public static Posting deposit(Money amount) {
+		return new DepositPosting(amount);
+	}
+
+	public static Posting withdrawal(Money amount) {
+		return new WithdrawalPosting(amount);
+	}
+
+	Money getAmount() {
+		return amount;
+	}
+
+	abstract boolean canBeAppliedTo(long balance);
+
+	abstract Transaction at(Instant instant);
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{amount=" + amount + '}';
+	}
+
+	private static class DepositPosting extends Posting {
+
+		private DepositPosting(Money amount) {
+			super(amount);
+		}
+
+		@Override
+		boolean canBeAppliedTo(long balance) {
+			return true;
+		}
+
+		@Override
+		Transaction at(Instant instant) {
+			return depositOf(getAmount(), instant);
+		}
+	}
+
+	private static class WithdrawalPosting extends Posting {
+
+		private WithdrawalPosting(Money amount) {
+			super(amount);
+		}
+
+		@Override
+		boolean canBeAppliedTo(long balance) {
+			return balance >= getAmount().toLong();
+		}
+
+		@Override
+		Transaction at(Instant instant) {
+			return withdrawalOf(getAmount(), instant);
+		}
+	}
+}
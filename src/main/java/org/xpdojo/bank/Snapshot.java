@@ -0,0 +1,130 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The balance of every account as of a position in a {@link Journal}, so that
+ * recovery only has to replay the journal from that position on.
+ * <p>
+ * On disk a snapshot is a header (magic number, version, journal position and
+ * account count) followed by a fixed-width entry per account of id, balance and
+ * the epoch nanoseconds of its latest transaction.
+ */
+final class Snapshot {
+
+	private static final int MAGIC = 0x58504253;
+	private static final int VERSION = 1;
+
+	private final LongMap<Checkpoint> byAccount = new LongMap<>();
+	private final List<Checkpoint> checkpoints = new ArrayList<>();
+	private long journalPosition;
+
+	static final class Checkpoint {
+		final long accountId;
+		long balance;
+		long epochNanos;
+
+		private Checkpoint(long accountId) {
+			this.accountId = accountId;
+		}
+	}
+
+	long journalPosition() {
+		return journalPosition;
+	}
+
+	List<Checkpoint> checkpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Folds a journal record into the balance of its account.
+	 */
+	void apply(long accountId, byte kind, long signedAmount, long epochNanos) {
+		Checkpoint checkpoint = byAccount.get(accountId);
+		if (checkpoint == null) {
+			checkpoint = new Checkpoint(accountId);
+			byAccount.put(accountId, checkpoint);
+			checkpoints.add(checkpoint);
+		}
+		checkpoint.balance += signedAmount;
+		checkpoint.epochNanos = epochNanos;
+	}
+
+	void advanceTo(long journalPosition) {
+		this.journalPosition = journalPosition;
+	}
+
+	static Snapshot read(Path file) throws IOException {
+		Snapshot snapshot = new Snapshot();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a version " + VERSION + " snapshot: " + file);
+			snapshot.journalPosition = in.readLong();
+			int accounts = in.readInt();
+			for (int i = 0; i < accounts; i++) {
+				Checkpoint checkpoint = new Checkpoint(in.readLong());
+				checkpoint.balance = in.readLong();
+				checkpoint.epochNanos = in.readLong();
+				snapshot.byAccount.put(checkpoint.accountId, checkpoint);
+				snapshot.checkpoints.add(checkpoint);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file, forces it to disk and only then moves it
+	 * into place, so that a snapshot file is never seen half written.
+	 */
+	void write(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(journalPosition);
+			out.writeInt(checkpoints.size());
+			for (Checkpoint checkpoint : checkpoints) {
+				out.writeLong(checkpoint.accountId);
+				out.writeLong(checkpoint.balance);
+				out.writeLong(checkpoint.epochNanos);
+			}
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, file, ATOMIC_MOVE);
+	}
+}
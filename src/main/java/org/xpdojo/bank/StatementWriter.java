@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.xpdojo.bank.Formats.DATE;
+import static org.xpdojo.bank.Formats.TIME;
+import static org.xpdojo.bank.Formats.appendMoney;
+
+/**
+ * Writes the lines of a statement one at a time, building each in a reused
+ * {@link StringBuilder} and handing it to the writer through a reused buffer.
+ */
+final class StatementWriter {
+
+	private static final String NEW_LINE = System.getProperty("line.separator");
+
+	private final Writer writer;
+	private final StringBuilder line = new StringBuilder(64);
+	private char[] buffer = new char[64];
+	private String separator = "";
+
+	StatementWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	void transaction(Transaction transaction, long balance) throws IOException {
+		line.append(separator);
+		DATE.formatTo(transaction.getDateTime(), line);
+		line.append(' ');
+		TIME.formatTo(transaction.getDateTime(), line);
+		line.append(' ').append(transaction.getClass().getSimpleName()).append(' ');
+		appendMoney(line, transaction.getAmount().toLong()).append(' ');
+		appendMoney(line, balance);
+		writeLine();
+	}
+
+	void balance(String label, long balance) throws IOException {
+		line.append(label);
+		appendMoney(line, balance);
+		writeLine();
+	}
+
+	/**
+	 * The reused builder, for statements that lay out their own text; hand what is
+	 * built in it to the writer with {@link #write()}.
+	 */
+	StringBuilder text() {
+		return line;
+	}
+
+	/**
+	 * Writes whatever has been built in {@link #text()} as it is, and clears it.
+	 */
+	void write() throws IOException {
+		if (buffer.length < line.length())
+			buffer = new char[line.length() * 2];
+		line.getChars(0, line.length(), buffer, 0);
+		writer.write(buffer, 0, line.length());
+		line.setLength(0);
+	}
+
+	private void writeLine() throws IOException {
+		write();
+		separator = NEW_LINE;
+	}
+}
@@ -40,6 +40,11 @@ public abstract class Transaction {
 
 	abstract Money against(Money money);
 
+	/**
+	 * Primitive equivalent of {@link #against(Money)} for folding a ledger without allocating.
+	 */
+	abstract long against(long balance);
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -76,6 +81,11 @@ public abstract class Transaction {
 		public Money against(Money other) {
 			return other.plus(this.getAmount());
 		}
+
+		@Override
+		long against(long balance) {
+			return balance + getAmount().toLong();
+		}
 	}
 
 	public static class Withdraw extends Transaction {
@@ -96,5 +106,10 @@ public abstract class Transaction {
 		public Money against(Money other) {
 			return other.minus(this.getAmount());
 		}
+
+		@Override
+		long against(long balance) {
+			return balance - getAmount().toLong();
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import org.xpdojo.bank.Clock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks usernames and passwords against a {@link CredentialStore}, remembering
+ * recent successful checks so that a user logging in again within the time to
+ * live does not pay for the slow hash again.
+ * <p>
+ * The cache is bounded, evicting the least recently used user, and holds only a
+ * SHA-256 digest of the password under a key chosen at random for this
+ * authenticator, which is compared in constant time. An entry is only trusted
+ * while the store still returns the credential it was verified against, so a
+ * changed password takes effect at once.
+ * <p>
+ * A username the store does not know is checked against a stand-in credential
+ * hashed with the store's {@linkplain CredentialStore#typicalIterations typical}
+ * iteration count, so that a failed login takes as long whether or not the user
+ * exists and the response time does not give usernames away.
+ */
+public final class Authenticator {
+
+	public static final int DEFAULT_CACHE_SIZE = 10_000;
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+	private final CredentialStore store;
+	private final Clock clock;
+	private final Duration timeToLive;
+	private final byte[] cacheKey = new byte[32];
+	private final Map<String, Verified> verified;
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder passwordsHashed = new LongAdder();
+	private volatile Credential standIn;
+
+	public Authenticator(CredentialStore store, Clock clock) {
+		this(store, clock, DEFAULT_CACHE_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	public Authenticator(CredentialStore store, Clock clock, int cacheSize, Duration timeToLive) {
+		this.store = store;
+		this.clock = clock;
+		this.timeToLive = timeToLive;
+		new SecureRandom().nextBytes(cacheKey);
+		this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	public boolean authenticate(String username, String password) {
+		if (username == null || password == null)
+			return false;
+		Credential credential = store.find(username);
+		if (credential == null) {
+			passwordsHashed.increment();
+			standIn().matches(password);
+			return false;
+		}
+
+		byte[] digest = digest(password);
+		Instant now = clock.now();
+		Verified cached;
+		synchronized (verified) {
+			cached = verified.get(username);
+		}
+		if (cached != null && cached.credential == credential && now.isBefore(cached.expires)
+				&& MessageDigest.isEqual(cached.digest, digest)) {
+			cacheHits.increment();
+			return true;
+		}
+
+		passwordsHashed.increment();
+		if (!credential.matches(password))
+			return false;
+		synchronized (verified) {
+			verified.put(username, new Verified(credential, digest, now.plus(timeToLive)));
+		}
+		return true;
+	}
+
+	/**
+	 * The number of logins accepted from the cache without hashing the password.
+	 */
+	public long cacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * The number of passwords put through the slow hash, whether or not the user was known.
+	 */
+	public long passwordsHashed() {
+		return passwordsHashed.sum();
+	}
+
+	private byte[] digest(String password) {
+		try {
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			sha256.update(cacheKey);
+			return sha256.digest(password.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * The stand-in credential, hashed on the first login by an unknown user and again
+	 * whenever the store's typical iteration count has changed since.
+	 */
+	Credential standIn() {
+		int iterations = store.typicalIterations();
+		Credential credential = standIn;
+		if (credential == null || credential.iterations() != iterations) {
+			credential = Credential.hash(UUID.randomUUID().toString(), iterations);
+			standIn = credential;
+		}
+		return credential;
+	}
+
+	private static final class Verified {
+		final Credential credential;
+		final byte[] digest;
+		final Instant expires;
+
+		Verified(Credential credential, byte[] digest, Instant expires) {
+			this.credential = credential;
+			this.digest = digest;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * A password stored as a salted PBKDF2 (HMAC-SHA256) hash. Hashing is deliberately
+ * slow, so checks that pass are worth caching, see {@link Authenticator}.
+ */
+public final class Credential {
+
+	public static final int DEFAULT_ITERATIONS = 600_000;
+
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private final int iterations;
+	private final byte[] salt;
+	private final byte[] hash;
+
+	private Credential(int iterations, byte[] salt, byte[] hash) {
+		this.iterations = iterations;
+		this.salt = salt;
+		this.hash = hash;
+	}
+
+	public static Credential hash(String password) {
+		return hash(password, DEFAULT_ITERATIONS);
+	}
+
+	public static Credential hash(String password, int iterations) {
+		byte[] salt = new byte[SALT_BYTES];
+		RANDOM.nextBytes(salt);
+		return new Credential(iterations, salt, pbkdf2(password, salt, iterations));
+	}
+
+	public int iterations() {
+		return iterations;
+	}
+
+	/**
+	 * Compares the hash of the password with the stored one in constant time.
+	 */
+	public boolean matches(String password) {
+		return password != null && MessageDigest.isEqual(hash, pbkdf2(password, salt, iterations));
+	}
+
+	/**
+	 * The credential as {@code iterations:salt:hash}, with salt and hash in Base64, as read by {@link #parse}.
+	 */
+	public String encode() {
+		Base64.Encoder base64 = Base64.getEncoder();
+		return iterations + ":" + base64.encodeToString(salt) + ":" + base64.encodeToString(hash);
+	}
+
+	public static Credential parse(String encoded) {
+		String[] parts = encoded.split(":");
+		if (parts.length != 3)
+			throw new IllegalArgumentException("Expected iterations:salt:hash but was " + encoded);
+		Base64.Decoder base64 = Base64.getDecoder();
+		return new Credential(Integer.parseInt(parts[0]), base64.decode(parts[1]), base64.decode(parts[2]));
+	}
+
+	private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+}
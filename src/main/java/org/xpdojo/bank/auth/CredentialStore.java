@@ -0,0 +1,37 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+/**
+ * Where the credentials checked by an {@link Authenticator} are kept.
+ */
+public interface CredentialStore {
+
+	/**
+	 * @return the user's credential, or null if there is no such user
+	 */
+	Credential find(String username);
+
+	/**
+	 * The iteration count most of the stored credentials are hashed with, which a
+	 * check against no credential at all should cost the same as.
+	 */
+	default int typicalIterations() {
+		return Credential.DEFAULT_ITERATIONS;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Credentials held in memory, optionally loaded from and saved to a file of
+ * {@code username:iterations:salt:hash} lines. Lines that are blank or start
+ * with {@code #} are ignored.
+ * <p>
+ * The number of credentials at each iteration count is kept as they are put, so
+ * that {@link #typicalIterations()} does not have to look at every credential.
+ */
+public final class InMemoryCredentialStore implements CredentialStore {
+
+	private final Map<String, Credential> credentials = new ConcurrentHashMap<>();
+	private final Map<Integer, Integer> iterationCounts = new ConcurrentHashMap<>();
+
+	public static InMemoryCredentialStore load(Path file) throws IOException {
+		InMemoryCredentialStore store = new InMemoryCredentialStore();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("#"))
+				continue;
+			int separator = trimmed.indexOf(':');
+			if (separator <= 0)
+				throw new IOException("Expected username:iterations:salt:hash in " + file + " but was " + trimmed);
+			store.put(trimmed.substring(0, separator), Credential.parse(trimmed.substring(separator + 1)));
+		}
+		return store;
+	}
+
+	public void save(Path file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, Credential> entry : credentials.entrySet()) {
+				writer.write(entry.getKey() + ":" + entry.getValue().encode());
+				writer.newLine();
+			}
+		}
+	}
+
+	public InMemoryCredentialStore put(String username, Credential credential) {
+		Credential replaced = credentials.put(username, credential);
+		iterationCounts.merge(credential.iterations(), 1, Integer::sum);
+		if (replaced != null)
+			iterationCounts.computeIfPresent(replaced.iterations(), (iterations, count) -> count == 1 ? null : count - 1);
+		return this;
+	}
+
+	@Override
+	public Credential find(String username) {
+		return credentials.get(username);
+	}
+
+	/**
+	 * The most common iteration count among the stored credentials, or the default if there are none.
+	 */
+	@Override
+	public int typicalIterations() {
+		int typical = Credential.DEFAULT_ITERATIONS;
+		int mostCredentials = 0;
+		for (Map.Entry<Integer, Integer> entry : iterationCounts.entrySet()) {
+			if (entry.getValue() > mostCredentials) {
+				typical = entry.getKey();
+				mostCredentials = entry.getValue();
+			}
+		}
+		return typical;
+	}
+}
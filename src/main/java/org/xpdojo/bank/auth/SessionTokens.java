@@ -0,0 +1,207 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import org.xpdojo.bank.Clock;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Issues and validates signed session tokens, so that a user who has logged in
+ * can be recognised without going back to the {@link CredentialStore}.
+ * <p>
+ * A token is {@code expiry.user.signature}: the expiry in epoch seconds, the
+ * username in URL-safe Base64, and an HMAC-SHA256 of the two in URL-safe Base64.
+ * Nothing is kept on the server, so any instance holding the key can validate a
+ * token. Validation compares the signature in constant time and allocates only
+ * the username of a valid token.
+ * <p>
+ * A {@link Mac} and its buffers are costly to set up, and requests often run on a
+ * new virtual thread each, so rather than being kept per thread they are lent out
+ * from a small lock-free pool: a thread takes one from a slot near its id and
+ * puts it back when done. Only when every slot it tries is empty is a new one
+ * made, and one returned to a full pool is dropped.
+ */
+public final class SessionTokens {
+
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(30);
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int KEY_BYTES = 32;
+	private static final int MAC_BYTES = 32;
+	private static final int SIGNATURE_CHARS = 43;
+	private static final int MAX_TOKEN_LENGTH = 512;
+	private static final int MAX_EXPIRY_DIGITS = 18;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	private static final int POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+	private static final int POOL_PROBES = 4;
+
+	private final SecretKeySpec key;
+	private final Clock clock;
+	private final Duration timeToLive;
+	private final AtomicReferenceArray<Signer> signers = new AtomicReferenceArray<>(POOL_SIZE);
+
+	public SessionTokens(byte[] key, Clock clock) {
+		this(key, clock, DEFAULT_TIME_TO_LIVE);
+	}
+
+	public SessionTokens(byte[] key, Clock clock, Duration timeToLive) {
+		if (key.length < KEY_BYTES)
+			throw new IllegalArgumentException("A session key needs at least " + KEY_BYTES + " bytes");
+		this.key = new SecretKeySpec(key, ALGORITHM);
+		this.clock = clock;
+		this.timeToLive = timeToLive;
+	}
+
+	public static byte[] randomKey() {
+		byte[] key = new byte[KEY_BYTES];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+
+	public Duration timeToLive() {
+		return timeToLive;
+	}
+
+	public String issue(String username) {
+		long expires = clock.now().plus(timeToLive).getEpochSecond();
+		String payload = expires + "." + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+		Signer signer = borrow();
+		try {
+			int length = signer.sign(payload);
+			if (length < 0)
+				throw new IllegalArgumentException("The username is too long for a session token");
+			return payload + "." + new String(signer.encoded, 0, length, StandardCharsets.US_ASCII);
+		} finally {
+			giveBack(signer);
+		}
+	}
+
+	/**
+	 * @return the username the token was issued to, or null if the token is malformed, forged or expired
+	 */
+	public String validate(String token) {
+		if (token == null || token.length() > MAX_TOKEN_LENGTH)
+			return null;
+		int user = token.indexOf('.') + 1;
+		int signature = token.indexOf('.', user) + 1;
+		if (user <= 1 || user > MAX_EXPIRY_DIGITS + 1 || signature <= user || token.length() - signature != SIGNATURE_CHARS)
+			return null;
+
+		Signer signer = borrow();
+		try {
+			if (signer.sign(token, signature - 1) != SIGNATURE_CHARS)
+				return null;
+			int difference = 0;
+			for (int i = 0; i < SIGNATURE_CHARS; i++)
+				difference |= signer.encoded[i] ^ token.charAt(signature + i);
+			if (difference != 0)
+				return null;
+		} finally {
+			giveBack(signer);
+		}
+
+		long expires = 0;
+		for (int i = 0; i < user - 1; i++) {
+			char digit = token.charAt(i);
+			if (digit < '0' || digit > '9')
+				return null;
+			expires = expires * 10 + (digit - '0');
+		}
+		if (clock.now().getEpochSecond() >= expires)
+			return null;
+		try {
+			return new String(DECODER.decode(token.substring(user, signature - 1)), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private Signer borrow() {
+		int start = (int) Thread.currentThread().threadId();
+		for (int i = 0; i < POOL_PROBES; i++) {
+			Signer signer = signers.getAndSet((start + i) & (POOL_SIZE - 1), null);
+			if (signer != null)
+				return signer;
+		}
+		return new Signer();
+	}
+
+	private void giveBack(Signer signer) {
+		int start = (int) Thread.currentThread().threadId();
+		for (int i = 0; i < POOL_PROBES; i++) {
+			if (signers.compareAndSet((start + i) & (POOL_SIZE - 1), null, signer))
+				return;
+		}
+	}
+
+	/**
+	 * A MAC and the buffers to sign with it, used by one thread at a time.
+	 */
+	private final class Signer {
+		private final Mac mac;
+		private final byte[] input = new byte[MAX_TOKEN_LENGTH];
+		private final byte[] signature = new byte[MAC_BYTES];
+		private final byte[] encoded = new byte[SIGNATURE_CHARS];
+
+		Signer() {
+			try {
+				mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(ALGORITHM + " is not available", e);
+			}
+		}
+
+		int sign(String payload) {
+			return sign(payload, payload.length());
+		}
+
+		/**
+		 * Signs the first {@code length} characters, which must be ASCII, into {@link #encoded}.
+		 *
+		 * @return the length of the encoded signature, or -1 if the payload is not ASCII
+		 */
+		int sign(CharSequence payload, int length) {
+			if (length > input.length)
+				return -1;
+			for (int i = 0; i < length; i++) {
+				char c = payload.charAt(i);
+				if (c > 0x7f)
+					return -1;
+				input[i] = (byte) c;
+			}
+			try {
+				mac.update(input, 0, length);
+				mac.doFinal(signature, 0);
+			} catch (ShortBufferException e) {
+				throw new IllegalStateException(e);
+			}
+			return ENCODER.encode(signature, encoded);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.engine;
+
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A slot in a {@link RingBuffer}. Slots are allocated once with the ring and
+ * filled in by each producer that claims them, so posting a command allocates
+ * nothing but its future. The steps of a transfer between shards are passed
+ * from shard to shard as commands of their own.
+ */
+final class Command {
+
+	static final int DEPOSIT = 0;
+	static final int WITHDRAW = 1;
+	static final int TRANSFER = 2;
+	static final int CREDIT = 4;
+	static final int COMMIT = 5;
+	static final int RELEASE = 6;
+
+	int type;
+	long accountId;
+	long counterpartyId;
+	Money amount;
+	CompletableFuture<Result> result;
+	/** Why the credit failed, carried back to the sender by a RELEASE. */
+	RuntimeException failure;
+
+	Command() {
+	}
+
+	Command(int type, long accountId, long counterpartyId, Money amount, CompletableFuture<Result> result) {
+		set(type, accountId, counterpartyId, amount, result);
+	}
+
+	void set(int type, long accountId, long counterpartyId, Money amount, CompletableFuture<Result> result) {
+		this.type = type;
+		this.accountId = accountId;
+		this.counterpartyId = counterpartyId;
+		this.amount = amount;
+		this.result = result;
+	}
+
+	void clear() {
+		amount = null;
+		result = null;
+	}
+}
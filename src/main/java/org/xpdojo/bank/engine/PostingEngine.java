@@ -0,0 +1,154 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.engine;
+
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies deposits, withdrawals and transfers to the accounts in a registry on
+ * single-writer shard threads, rather than on the caller's thread.
+ * <p>
+ * Commands are partitioned by account id, so every command for an account is
+ * applied in order by the same shard, and each shard reads its commands from its
+ * own ring buffer. The result of each command completes its future; an unknown
+ * account completes it exceptionally with an {@link IllegalArgumentException}.
+ * A transfer between accounts on the same shard is applied in one step; one
+ * between shards reserves the amount on the sender's shard, credits it on the
+ * receiver's and then settles the reservation, so that no shard ever touches
+ * another's accounts. The reserved amount drops out of the sender's balance
+ * as soon as it is reserved, so it is never counted in both accounts; it is
+ * recorded as withdrawn once the receiver has been credited, or released back
+ * with the credit's failure if it cannot be, so no money is created or lost.
+ * <p>
+ * Futures are completed on an executor, the common pool unless another is
+ * given, never on a shard thread, so that whatever a caller chains onto a result
+ * runs apart from the shards and may itself post to the engine and wait.
+ */
+public final class PostingEngine implements AutoCloseable {
+
+	private static final int DEFAULT_RING_CAPACITY = 1 << 14;
+
+	private final Shard[] shards;
+	private final AtomicLong transfersInFlight = new AtomicLong();
+	private final Executor completions;
+
+	public PostingEngine(AccountRegistry registry) {
+		this(registry, Runtime.getRuntime().availableProcessors(), DEFAULT_RING_CAPACITY);
+	}
+
+	/**
+	 * @param ringCapacity the number of commands each shard can have queued, a power of two
+	 */
+	public PostingEngine(AccountRegistry registry, int shards, int ringCapacity) {
+		this(registry, shards, ringCapacity, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param ringCapacity the number of commands each shard can have queued, a power of two
+	 * @param completions  the executor on which the futures of commands are completed
+	 */
+	public PostingEngine(AccountRegistry registry, int shards, int ringCapacity, Executor completions) {
+		if (shards < 1)
+			throw new IllegalArgumentException("A posting engine needs at least one shard");
+		this.completions = completions;
+		this.shards = new Shard[shards];
+		for (int i = 0; i < shards; i++)
+			this.shards[i] = new Shard(this, registry, ringCapacity, "posting-shard-" + i);
+		for (Shard shard : this.shards)
+			shard.start();
+	}
+
+	public CompletableFuture<Result> deposit(long accountId, Money amount) {
+		return shardFor(accountId).submit(Command.DEPOSIT, accountId, 0, amount);
+	}
+
+	public CompletableFuture<Result> withdraw(long accountId, Money amount) {
+		return shardFor(accountId).submit(Command.WITHDRAW, accountId, 0, amount);
+	}
+
+	public CompletableFuture<Result> transfer(long senderId, long receiverId, Money amount) {
+		return shardFor(senderId).submit(Command.TRANSFER, senderId, receiverId, amount);
+	}
+
+	/**
+	 * Applies every command already posted and stops the shard threads. Commands
+	 * posted afterwards are rejected. If the caller is interrupted while waiting it
+	 * stops waiting and returns with its interrupt flag set; the shards still apply
+	 * what was posted before they stop.
+	 */
+	@Override
+	public void close() {
+		for (Shard shard : shards)
+			shard.stop();
+		try {
+			for (Shard shard : shards)
+				shard.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The shard that applies the commands for an account; accounts that often
+	 * transfer to each other are best given ids on the same shard.
+	 */
+	public int shardOf(long accountId) {
+		long hash = accountId * 0x9E3779B97F4A7C15L;
+		return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shards.length);
+	}
+
+	Shard shardFor(long accountId) {
+		return shards[shardOf(accountId)];
+	}
+
+	void complete(CompletableFuture<Result> future, Result result) {
+		completions.execute(() -> future.complete(result));
+	}
+
+	void fail(CompletableFuture<Result> future, Throwable failure) {
+		completions.execute(() -> future.completeExceptionally(failure));
+	}
+
+	void transferStarted() {
+		transfersInFlight.incrementAndGet();
+	}
+
+	void transferSettled() {
+		transfersInFlight.decrementAndGet();
+	}
+
+	/**
+	 * Whether every shard has applied every command posted to it and every transfer
+	 * between shards has settled, so that a closed shard can stop. The rings are
+	 * checked first because applying a transfer starts it before its ring moves on.
+	 */
+	boolean quiescent() {
+		for (Shard shard : shards) {
+			if (!shard.drained())
+				return false;
+		}
+		return transfersInFlight.get() == 0;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded ring of {@link Command} slots with many producers and a single consumer.
+ * <p>
+ * Each slot carries a sequence number. A producer claims a position by
+ * incrementing the tail, waits until the slot's sequence equals the position
+ * (the consumer has finished with the slot from the previous lap), fills the
+ * slot in and publishes it by setting the sequence to position + 1. The consumer
+ * takes the slot at the head once its sequence says it is published, and hands
+ * it back by moving its sequence on a lap. A full ring makes producers wait.
+ * <p>
+ * {@link #close()} sets a bit in the tail, so that claiming and closing are
+ * ordered by the same atomic: every claim either lands before the close, and
+ * so is waited for by {@link #drained()}, or fails without touching the ring.
+ */
+final class RingBuffer {
+
+	private final Command[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private static final long CLOSED = Long.MIN_VALUE;
+
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong consumed = new AtomicLong();
+	private long head;
+
+	RingBuffer(int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("Ring capacity must be a power of two, was " + capacity);
+		slots = new Command[capacity];
+		sequences = new AtomicLongArray(capacity);
+		mask = capacity - 1;
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = new Command();
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Claims the next position, waiting while the ring is full. The caller must fill
+	 * in {@link #slot} and {@link #publish} it, or the consumer will stall.
+	 *
+	 * @return the position, or -1 if the ring has been closed
+	 */
+	long claim() {
+		long position;
+		do {
+			position = tail.get();
+			if ((position & CLOSED) != 0)
+				return -1;
+		} while (!tail.compareAndSet(position, position + 1));
+		int index = (int) position & mask;
+		for (int spins = 0; sequences.getAcquire(index) != position; spins++) {
+			if (spins < 100)
+				Thread.onSpinWait();
+			else
+				Thread.yield();
+		}
+		return position;
+	}
+
+	Command slot(long position) {
+		return slots[(int) position & mask];
+	}
+
+	void publish(long position) {
+		sequences.set((int) position & mask, position + 1);
+	}
+
+	/**
+	 * @return the command at the head, or null if none has been published there yet
+	 */
+	Command peek() {
+		return sequences.get((int) head & mask) == head + 1 ? slots[(int) head & mask] : null;
+	}
+
+	/**
+	 * Hands the command at the head back to the producers and moves on to the next.
+	 */
+	void advance() {
+		int index = (int) head & mask;
+		slots[index].clear();
+		sequences.setRelease(index, head + slots.length);
+		consumed.lazySet(++head);
+	}
+
+	/**
+	 * Refuses any further claims; those already made can still be published and consumed.
+	 */
+	void close() {
+		long position;
+		do {
+			position = tail.get();
+		} while (!tail.compareAndSet(position, position | CLOSED));
+	}
+
+	/**
+	 * @return whether every claimed position has been consumed; safe to call from any thread
+	 */
+	boolean drained() {
+		return (tail.get() & ~CLOSED) == consumed.get();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.engine;
+
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.xpdojo.bank.Result.success;
+
+/**
+ * A single thread applying the commands from its ring, in order, to the accounts
+ * that hash to it. Being the only writer of those accounts, it never contends for
+ * their locks. When there is nothing to do the thread spins briefly and then
+ * parks until a producer publishes.
+ * <p>
+ * A transfer to an account on another shard runs in two phases so that neither
+ * shard touches the other's accounts: the sender's shard reserves the amount and
+ * passes a credit to the receiver's shard, which deposits it and passes back a
+ * commit, or a release if the receiver cannot be credited. Those steps travel on an
+ * unbounded queue rather than the ring, so that two shards with full rings can
+ * never wait on each other, and are taken ahead of new commands.
+ */
+final class Shard implements Runnable {
+
+	private static final int SPINS_BEFORE_PARKING = 1_000;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final PostingEngine engine;
+	private final AccountRegistry registry;
+	private final RingBuffer ring;
+	private final Queue<Command> steps = new ConcurrentLinkedQueue<>();
+	private final Thread thread;
+	private volatile boolean parked;
+	private volatile boolean closed;
+
+	Shard(PostingEngine engine, AccountRegistry registry, int ringCapacity, String name) {
+		this.engine = engine;
+		this.registry = registry;
+		this.ring = new RingBuffer(ringCapacity);
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	CompletableFuture<Result> submit(int type, long accountId, long counterpartyId, Money amount) {
+		CompletableFuture<Result> result = new CompletableFuture<>();
+		long position = ring.claim();
+		if (position < 0) {
+			result.completeExceptionally(new RejectedExecutionException("The posting engine has been closed"));
+			return result;
+		}
+		ring.slot(position).set(type, accountId, counterpartyId, amount, result);
+		ring.publish(position);
+		wake();
+		return result;
+	}
+
+	/**
+	 * Stops taking new commands; the thread finishes once everything in flight has been applied.
+	 */
+	void stop() {
+		// closing the ring first means every claim that got in is counted by drained() once the thread sees closed
+		ring.close();
+		closed = true;
+		LockSupport.unpark(thread);
+	}
+
+	boolean drained() {
+		return ring.drained();
+	}
+
+	void join() throws InterruptedException {
+		thread.join();
+	}
+
+	@Override
+	public void run() {
+		int idle = 0;
+		while (true) {
+			Command step = steps.poll();
+			Command command = step == null ? ring.peek() : step;
+			if (command != null) {
+				apply(command);
+				if (step == null)
+					ring.advance();
+				idle = 0;
+			} else if (closed && engine.quiescent()) {
+				return;
+			} else if (++idle < SPINS_BEFORE_PARKING) {
+				Thread.onSpinWait();
+			} else {
+				parked = true;
+				if (steps.isEmpty() && ring.peek() == null && !closed)
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				parked = false;
+			}
+		}
+	}
+
+	private void send(Command step) {
+		steps.add(step);
+		wake();
+	}
+
+	private void wake() {
+		if (parked)
+			LockSupport.unpark(thread);
+	}
+
+	private void apply(Command command) {
+		// taken first, as a ring slot is cleared for reuse once applied
+		CompletableFuture<Result> future = command.result;
+		try {
+			Result result = execute(command);
+			if (result != null)
+				engine.complete(future, result);
+		} catch (RuntimeException e) {
+			engine.fail(future, e);
+		}
+	}
+
+	/**
+	 * @return the result of the command, or null if it completes on another step
+	 */
+	private Result execute(Command command) {
+		switch (command.type) {
+			case Command.DEPOSIT:
+				accountFor(command.accountId).deposit(command.amount);
+				return success();
+			case Command.WITHDRAW:
+				return accountFor(command.accountId).withdraw(command.amount);
+			case Command.TRANSFER:
+				return transfer(command);
+			case Command.CREDIT:
+				credit(command);
+				return null;
+			case Command.COMMIT:
+				engine.transferSettled();
+				accountFor(command.accountId).commitReservation(command.amount);
+				return success();
+			case Command.RELEASE:
+				engine.transferSettled();
+				accountFor(command.accountId).releaseReservation(command.amount);
+				throw command.failure;
+			default:
+				throw new IllegalStateException("Unknown command " + command.type);
+		}
+	}
+
+	private Result transfer(Command command) {
+		Account sender = accountFor(command.accountId);
+		Shard receiverShard = engine.shardFor(command.counterpartyId);
+		if (receiverShard == this)
+			return sender.transfer(command.amount, accountFor(command.counterpartyId));
+
+		Result reservation = sender.reserve(command.amount);
+		if (!reservation.succeeded())
+			return reservation;
+		engine.transferStarted();
+		receiverShard.send(new Command(Command.CREDIT, command.counterpartyId, command.accountId, command.amount, command.result));
+		return null;
+	}
+
+	/**
+	 * Deposits the amount, replying with a commit, or with a release carrying the
+	 * reason if the receiver is missing or the deposit fails, so the sender's
+	 * reservation is always settled.
+	 */
+	private void credit(Command command) {
+		RuntimeException failure = null;
+		try {
+			accountFor(command.accountId).deposit(command.amount);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		Command reply = new Command(failure == null ? Command.COMMIT : Command.RELEASE, command.counterpartyId, command.accountId, command.amount, command.result);
+		reply.failure = failure;
+		engine.shardFor(command.counterpartyId).send(reply);
+	}
+
+	private Account accountFor(long accountId) {
+		Account account = registry.get(accountId);
+		if (account == null)
+			throw new IllegalArgumentException("No account " + accountId);
+		return account;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An element located once, when first used, and then reused. If the page has
+ * replaced it since, it is located again and the action retried once.
+ */
+final class CachedElement {
+
+    private final By locator;
+    private final WebDriverWait wait;
+    private WebElement element;
+
+    CachedElement(By locator, WebDriverWait wait) {
+        this.locator = locator;
+        this.wait = wait;
+    }
+
+    void run(Consumer<WebElement> action) {
+        apply(element -> {
+            action.accept(element);
+            return null;
+        });
+    }
+
+    <T> T apply(Function<WebElement, T> action) {
+        try {
+            return action.apply(element());
+        } catch (StaleElementReferenceException e) {
+            element = null;
+            return action.apply(element());
+        }
+    }
+
+    private WebElement element() {
+        if (element == null)
+            element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return element;
+    }
+}
@@ -20,23 +20,26 @@ package org.xpdojo.bank.pages;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
-import java.time.Duration;
 
 public class LoginPage {
     private WebDriver driver;
     private WebDriverWait wait;
 
-    private By usernameField = By.id("username");
-    private By passwordField = By.id("password");
     private By loginButton = By.cssSelector("button[type='submit']");
     private By errorMessage = By.id("errorMessage");
+
+    private final CachedElement usernameField;
+    private final CachedElement passwordField;
+    private final CachedElement loginButtonElement;
     
     public LoginPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        this.wait = Waits.on(driver);
+        this.usernameField = new CachedElement(By.id("username"), wait);
+        this.passwordField = new CachedElement(By.id("password"), wait);
+        this.loginButtonElement = new CachedElement(loginButton, wait);
     }
 
     public void login(String username, String password) {
@@ -46,19 +49,21 @@ public class LoginPage {
     }
     
     public void enterUsername(String username) {
-        WebElement element = wait.until(ExpectedConditions.elementToBeClickable(usernameField));
-        element.clear();
-        element.sendKeys(username);
+        usernameField.run(element -> {
+            element.clear();
+            element.sendKeys(username);
+        });
     }
     
     public void enterPassword(String password) {
-        WebElement element = wait.until(ExpectedConditions.elementToBeClickable(passwordField));
-        element.clear();
-        element.sendKeys(password);
+        passwordField.run(element -> {
+            element.clear();
+            element.sendKeys(password);
+        });
     }
     
     public void clickLogin() {
-        wait.until(ExpectedConditions.elementToBeClickable(loginButton)).click();
+        loginButtonElement.run(element -> element.click());
     }
     
     public String getErrorMessage() {
@@ -75,4 +80,4 @@ public class LoginPage {
         }
     }
 
-}
\ No newline at end of file
+}
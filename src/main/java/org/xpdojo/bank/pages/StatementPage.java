@@ -18,23 +18,33 @@
 package org.xpdojo.bank.pages;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
-import java.time.Duration;
 import java.util.List;
 
+/**
+ * The statement page, whose rows its script fills in from the JSON statement,
+ * marking the table {@code data-loaded} when it is done. The text of every
+ * transaction row is fetched with a single script call the first time it is needed
+ * and kept, so counting or reading rows does not go back to the browser row by row;
+ * {@link #refresh()} fetches it again.
+ */
 public class StatementPage {
+    private static final String ROW_TEXTS =
+            "return Array.from(document.querySelectorAll('#statementTable tbody tr'), row => row.innerText);";
+
     private WebDriver driver;
     private WebDriverWait wait;
     
     private By statementTable = By.id("statementTable");
-    private By transactions = By.cssSelector("#statementTable tr");
+    private By loadedStatementTable = By.cssSelector("#statementTable[data-loaded]");
+    private List<String> rows;
 
     public StatementPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        this.wait = Waits.on(driver);
     }
 
     public boolean isDisplayed() {
@@ -48,16 +58,30 @@ public class StatementPage {
     }
 
     public int getTransactionCount() {
-        List<WebElement> rows = wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(transactions));
-        // Subtract 1 to account for the header row
-        return Math.max(0, rows.size() - 1);
+        return rows().size();
     }
 
+    /**
+     * @param index the position of the transaction, counting from 1
+     */
     public String getTransactionDescription(int index) {
-        List<WebElement> rows = wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(transactions));
-        if (index < 1 || index >= rows.size()) {
+        List<String> rows = rows();
+        if (index < 1 || index > rows.size()) {
             throw new IndexOutOfBoundsException("Transaction index out of range");
         }
-        return rows.get(index).getText();
+        return rows.get(index - 1);
+    }
+
+    public void refresh() {
+        rows = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> rows() {
+        if (rows == null) {
+            wait.until(ExpectedConditions.presenceOfElementLocated(loadedStatementTable));
+            rows = (List<String>) ((JavascriptExecutor) driver).executeScript(ROW_TEXTS);
+        }
+        return rows;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.pages;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+
+/**
+ * The waits the page objects share: up to ten seconds, checked every 50ms rather
+ * than the default 500ms, so a condition met early is noticed early.
+ */
+final class Waits {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration POLLING = Duration.ofMillis(50);
+
+    private Waits() {
+    }
+
+    static WebDriverWait on(WebDriver driver) {
+        WebDriverWait wait = new WebDriverWait(driver, TIMEOUT, POLLING);
+        wait.ignoring(StaleElementReferenceException.class);
+        return wait;
+    }
+}
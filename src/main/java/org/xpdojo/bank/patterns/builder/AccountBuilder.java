@@ -19,10 +19,13 @@ package org.xpdojo.bank.patterns.builder;
 
 import  org.xpdojo.bank.*;
 
+import java.util.function.Supplier;
+
 public class AccountBuilder {
 
     private Money initialBalance = Money.ZERO;
     private Clock clock;
+    private Supplier<Ledger> ledger = ListLedger::new;
 
     private AccountBuilder() {}
 
@@ -40,10 +43,18 @@ public class AccountBuilder {
         return this;
     }
 
+    /**
+     * Each account built gets a ledger of its own from the supplier.
+     */
+    public AccountBuilder withLedger(Supplier<Ledger> ledger) {
+        this.ledger = ledger;
+        return this;
+    }
+
     public Account build() {
         if (clock == null) {
             throw new IllegalStateException("Clock must be provided to build an Account.");
         }
-        return Account.accountWithBalance(initialBalance, clock);
+        return Account.accountWithBalance(initialBalance, clock, ledger.get());
     }
 }
@@ -0,0 +1,281 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.registry;
+
+import org.xpdojo.bank.Account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The accounts held in memory, keyed by a primitive account id.
+ * <p>
+ * Ids are spread over shards, each an open-addressing table of parallel
+ * {@code long} keys and {@link Account} values, so keys are never boxed and an
+ * entry costs two array slots. Lookups take no locks: a slot's value is
+ * published before its key, so a reader that sees the key also sees the
+ * account. Writers lock only their shard. A removed account leaves its key in
+ * place with a null value, which keeps probe sequences intact until the shard
+ * next grows.
+ * <p>
+ * Iteration is weakly consistent: it sees every account registered before it
+ * started and may or may not see those registered or removed while it runs.
+ */
+public final class AccountRegistry {
+
+	private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Account[].class);
+	private static final long EMPTY = 0L;
+	private static final int DEFAULT_SHARDS = 64;
+	private static final int DEFAULT_CAPACITY = 1 << 10;
+
+	private final Shard[] shards;
+	private final int shardShift;
+	private volatile Account zero;
+
+	public AccountRegistry() {
+		this(DEFAULT_SHARDS, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param shards                  the number of independently locked shards, rounded up to a power of two
+	 * @param initialCapacityPerShard the number of accounts each shard holds before it first grows
+	 */
+	public AccountRegistry(int shards, int initialCapacityPerShard) {
+		if (shards < 1 || initialCapacityPerShard < 1)
+			throw new IllegalArgumentException("A registry needs at least one shard with room for one account");
+		int count = powerOfTwoAtLeast(shards);
+		this.shards = new Shard[count];
+		this.shardShift = 64 - Integer.numberOfTrailingZeros(count);
+		for (int i = 0; i < count; i++)
+			this.shards[i] = new Shard(powerOfTwoAtLeast(initialCapacityPerShard * 4 / 3 + 1));
+	}
+
+	/**
+	 * @return the account registered with the id, or null if there is none
+	 */
+	public Account get(long accountId) {
+		if (accountId == EMPTY)
+			return zero;
+		long hash = mix(accountId);
+		return shardFor(hash).get(accountId, hash);
+	}
+
+	/**
+	 * Registers the account unless one is already registered with the id.
+	 *
+	 * @return the account already registered, or null if this one was registered
+	 */
+	public Account putIfAbsent(long accountId, Account account) {
+		if (account == null)
+			throw new NullPointerException("Cannot register a null account");
+		if (accountId == EMPTY) {
+			synchronized (this) {
+				Account existing = zero;
+				if (existing == null)
+					zero = account;
+				return existing;
+			}
+		}
+		long hash = mix(accountId);
+		return shardFor(hash).putIfAbsent(accountId, hash, account);
+	}
+
+	/**
+	 * @return the account that was registered with the id, or null if there was none
+	 */
+	public Account remove(long accountId) {
+		if (accountId == EMPTY) {
+			synchronized (this) {
+				Account existing = zero;
+				zero = null;
+				return existing;
+			}
+		}
+		long hash = mix(accountId);
+		return shardFor(hash).remove(accountId, hash);
+	}
+
+	public long size() {
+		long size = zero == null ? 0 : 1;
+		for (Shard shard : shards)
+			size += shard.size;
+		return size;
+	}
+
+	/**
+	 * Passes every registered account and its id to the action, a shard at a time.
+	 */
+	public void forEach(ObjLongConsumer<Account> action) {
+		Account account = zero;
+		if (account != null)
+			action.accept(account, EMPTY);
+		for (Shard shard : shards)
+			shard.forEach(action);
+	}
+
+	/**
+	 * Like {@link #forEach} but visits the shards in parallel, for end-of-day jobs
+	 * over the whole registry; the action must be safe to call concurrently.
+	 */
+	public void parallelForEach(ObjLongConsumer<Account> action) {
+		Account account = zero;
+		if (account != null)
+			action.accept(account, EMPTY);
+		IntStream.range(0, shards.length).parallel().forEach(i -> shards[i].forEach(action));
+	}
+
+	private Shard shardFor(long hash) {
+		return shards.length == 1 ? shards[0] : shards[(int) (hash >>> shardShift)];
+	}
+
+	/**
+	 * Spreads sequential ids over both the shards, chosen by the high bits, and the slots, chosen by the low bits.
+	 */
+	private static long mix(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return hash ^ (hash >>> 32);
+	}
+
+	private static int powerOfTwoAtLeast(int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+
+	private static final class Table {
+		final long[] keys;
+		final Account[] values;
+		final int mask;
+
+		Table(int capacity) {
+			keys = new long[capacity];
+			values = new Account[capacity];
+			mask = capacity - 1;
+		}
+	}
+
+	private static final class Shard {
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile Table table;
+		private volatile int size;
+		private int used;
+
+		Shard(int capacity) {
+			table = new Table(capacity);
+		}
+
+		Account get(long key, long hash) {
+			Table current = table;
+			for (int slot = (int) hash & current.mask; ; slot = (slot + 1) & current.mask) {
+				long found = (long) KEYS.getAcquire(current.keys, slot);
+				if (found == key)
+					return (Account) VALUES.getAcquire(current.values, slot);
+				if (found == EMPTY)
+					return null;
+			}
+		}
+
+		Account putIfAbsent(long key, long hash, Account account) {
+			lock.lock();
+			try {
+				Table current = table;
+				int slot = slotFor(current, key, hash);
+				if (current.keys[slot] == key) {
+					Account existing = current.values[slot];
+					if (existing != null)
+						return existing;
+					VALUES.setRelease(current.values, slot, account);
+				} else {
+					if ((used + 1) * 4L > current.keys.length * 3L) {
+						current = grow(current);
+						slot = slotFor(current, key, hash);
+					}
+					VALUES.setRelease(current.values, slot, account);
+					KEYS.setRelease(current.keys, slot, key);
+					used++;
+				}
+				size++;
+				return null;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		Account remove(long key, long hash) {
+			lock.lock();
+			try {
+				Table current = table;
+				int slot = slotFor(current, key, hash);
+				if (current.keys[slot] != key)
+					return null;
+				Account existing = current.values[slot];
+				if (existing != null) {
+					VALUES.setRelease(current.values, slot, null);
+					size--;
+				}
+				return existing;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void forEach(ObjLongConsumer<Account> action) {
+			Table current = table;
+			for (int slot = 0; slot < current.keys.length; slot++) {
+				long key = (long) KEYS.getAcquire(current.keys, slot);
+				if (key == EMPTY)
+					continue;
+				Account account = (Account) VALUES.getAcquire(current.values, slot);
+				if (account != null)
+					action.accept(account, key);
+			}
+		}
+
+		/**
+		 * @return the slot holding the key, or the empty slot where it belongs
+		 */
+		private static int slotFor(Table table, long key, long hash) {
+			int slot = (int) hash & table.mask;
+			while (table.keys[slot] != key && table.keys[slot] != EMPTY)
+				slot = (slot + 1) & table.mask;
+			return slot;
+		}
+
+		/**
+		 * Copies the live entries into a table sized for twice as many, dropping removed
+		 * keys, and publishes it. Readers still on the old table see it unchanged.
+		 */
+		private Table grow(Table old) {
+			Table grown = new Table(powerOfTwoAtLeast(Math.max(size + 1, 1) * 8 / 3 + 1));
+			for (int slot = 0; slot < old.keys.length; slot++) {
+				Account account = old.values[slot];
+				if (account == null)
+					continue;
+				long key = old.keys[slot];
+				int to = slotFor(grown, key, mix(key));
+				grown.keys[to] = key;
+				grown.values[to] = account;
+			}
+			used = size;
+			table = grown;
+			return grown;
+		}
+	}
+}
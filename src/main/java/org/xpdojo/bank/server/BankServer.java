@@ -0,0 +1,167 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.server;
+
+import jakarta.servlet.DispatcherType;
+import org.eclipse.jetty.ee10.servlet.DefaultServlet;
+import org.eclipse.jetty.ee10.servlet.FilterHolder;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xpdojo.bank.servlets.BankContextListener;
+import org.xpdojo.bank.servlets.LoginServlet;
+import org.xpdojo.bank.servlets.SessionFilter;
+import org.xpdojo.bank.servlets.StatementServlet;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the bank in an embedded Jetty, without a WAR or the Jetty Maven plugin.
+ * <p>
+ * The listener, filter and servlets are registered here rather than found by
+ * scanning for their annotations, and there are no HTTP sessions, JSP or
+ * descriptors to process, so the server is up in a small fraction of a second.
+ * Servlets are initialised on their first request as usual, so the cost of
+ * setting up the credential store falls on the first login.
+ * <p>
+ * {@link #main} takes its settings from system properties: {@code bank.port}
+ * (8080), {@code bank.webapp}, the directory of static pages
+ * ({@code src/main/webapp}), {@code bank.threads.min} and {@code bank.threads.max}
+ * (8 and 200), {@code bank.acceptors} and {@code bank.selectors} (-1, for Jetty
+ * to choose from the number of cores) and {@code bank.virtualThreads} (false).
+ * With virtual threads the pool's platform threads still run the selectors and
+ * accept connections, but requests are handled on virtual threads, so the
+ * maximum pool size no longer limits how many can block at once.
+ * <p>
+ * Run with {@code mvn compile exec:java -P embedded-server}. Jetty and the servlet
+ * API are provided dependencies, so they stay off the classpath of the webapp
+ * that jetty-maven-plugin runs for the behaviour and load tests.
+ */
+public class BankServer implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BankServer.class);
+
+	private final Server server;
+	private final ServerConnector connector;
+
+	/**
+	 * @param port the port to listen on, or 0 for any free port
+	 * @param acceptors the number of threads accepting connections, or -1 for Jetty's default
+	 * @param selectors the number of threads selecting on connections, or -1 for Jetty's default
+	 */
+	public BankServer(int port, Path webapp, QueuedThreadPool threadPool, int acceptors, int selectors) {
+		server = new Server(threadPool);
+		HttpConfiguration http = new HttpConfiguration();
+		http.setSendServerVersion(false);
+		connector = new ServerConnector(server, acceptors, selectors, new HttpConnectionFactory(http));
+		connector.setPort(port);
+		server.addConnector(connector);
+		server.setHandler(context(webapp));
+		server.setStopTimeout(TimeUnit.SECONDS.toMillis(5));
+		server.setStopAtShutdown(true);
+	}
+
+	/**
+	 * A pool of {@code minThreads} to {@code maxThreads} platform threads,
+	 * handing requests to virtual threads if {@code virtualThreads} is set.
+	 */
+	public static QueuedThreadPool threadPool(int minThreads, int maxThreads, boolean virtualThreads) {
+		QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, minThreads);
+		threadPool.setName("bank");
+		if (virtualThreads)
+			threadPool.setVirtualThreadsExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		return threadPool;
+	}
+
+	private static ServletContextHandler context(Path webapp) {
+		ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+		context.setContextPath("/");
+		context.setBaseResourceAsPath(webapp);
+		context.setWelcomeFiles(new String[] {"login.html"});
+		context.addEventListener(new BankContextListener());
+
+		FilterHolder sessions = new FilterHolder(SessionFilter.class);
+		sessions.setAsyncSupported(true);
+		context.addFilter(sessions, "/api/statement", EnumSet.of(DispatcherType.REQUEST));
+		context.addFilter(sessions, "/api/statement/*", EnumSet.of(DispatcherType.REQUEST));
+
+		ServletHolder login = new ServletHolder("login", LoginServlet.class);
+		login.setAsyncSupported(true);
+		context.addServlet(login, "/api/login");
+		ServletHolder statement = new ServletHolder("statement", StatementServlet.class);
+		statement.setAsyncSupported(true);
+		context.addServlet(statement, "/api/statement");
+
+		ServletHolder pages = new ServletHolder("pages", DefaultServlet.class);
+		pages.setInitParameter("dirAllowed", "false");
+		context.addServlet(pages, "/");
+		return context;
+	}
+
+	public BankServer start() throws Exception {
+		long started = System.nanoTime();
+		server.start();
+		LOG.info("Bank started on port {} in {} ms", port(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return this;
+	}
+
+	/**
+	 * @return the port listened on, which is only known once started if 0 was asked for
+	 */
+	public int port() {
+		return connector.getLocalPort();
+	}
+
+	public void join() throws InterruptedException {
+		server.join();
+	}
+
+	@Override
+	public void close() {
+		try {
+			server.stop();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not stop the server", e);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		QueuedThreadPool threadPool = threadPool(
+			Integer.getInteger("bank.threads.min", 8),
+			Integer.getInteger("bank.threads.max", 200),
+			Boolean.getBoolean("bank.virtualThreads"));
+		BankServer server = new BankServer(
+			Integer.getInteger("bank.port", 8080),
+			Path.of(System.getProperty("bank.webapp", "src/main/webapp")),
+			threadPool,
+			Integer.getInteger("bank.acceptors", -1),
+			Integer.getInteger("bank.selectors", -1));
+		server.start().join();
+	}
+}
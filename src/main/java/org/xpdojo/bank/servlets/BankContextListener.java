@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.servlets;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.Clock;
+import org.xpdojo.bank.auth.SessionTokens;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.xpdojo.bank.Money.amountOf;
+
+/**
+ * Sets up what the servlets share, as attributes of the servlet context.
+ * <p>
+ * Session tokens are signed with the key given in Base64 by the
+ * {@value #SESSION_KEY_PROPERTY} system property, so that every instance of the
+ * application accepts the others' tokens, or else with a random key, which
+ * logs everyone out on restart.
+ * <p>
+ * The accounts are held in an {@link AccountRegistry}, with a map from each
+ * user to the id of their account. For now these hold a single demo account,
+ * belonging to the demo user, whose transactions the statement page shows.
+ */
+@WebListener
+public class BankContextListener implements ServletContextListener {
+
+    static final String SESSION_KEY_PROPERTY = "bank.session.key";
+
+    private static final String ACCOUNT_IDS = "org.xpdojo.bank.accountIds";
+    private static final long DEMO_ACCOUNT_ID = 1;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        String key = System.getProperty(SESSION_KEY_PROPERTY);
+        byte[] sessionKey = key == null ? SessionTokens.randomKey() : Base64.getDecoder().decode(key);
+        context.setAttribute(SessionTokens.class.getName(), new SessionTokens(sessionKey, Instant::now));
+
+        AccountRegistry accounts = new AccountRegistry();
+        accounts.putIfAbsent(DEMO_ACCOUNT_ID, demoAccount());
+        context.setAttribute(AccountRegistry.class.getName(), accounts);
+        context.setAttribute(ACCOUNT_IDS, Map.of("testuser", DEMO_ACCOUNT_ID));
+    }
+
+    private static Account demoAccount() {
+        Iterator<Instant> history = List.of(
+                Instant.parse("2023-05-01T09:00:00Z"),
+                Instant.parse("2023-05-03T12:30:00Z"),
+                Instant.parse("2023-05-05T08:15:00Z")).iterator();
+        Clock clock = () -> history.hasNext() ? history.next() : Instant.now();
+        Account account = Account.accountWithBalance(amountOf(5_000), clock);
+        account.withdraw(amountOf(125));
+        account.withdraw(amountOf(85));
+        return account;
+    }
+
+    static SessionTokens sessionTokens(ServletContext context) {
+        return (SessionTokens) context.getAttribute(SessionTokens.class.getName());
+    }
+
+    static AccountRegistry accounts(ServletContext context) {
+        return (AccountRegistry) context.getAttribute(AccountRegistry.class.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Long> accountIds(ServletContext context) {
+        return (Map<String, Long>) context.getAttribute(ACCOUNT_IDS);
+    }
+}
@@ -17,49 +17,253 @@
 
 package org.xpdojo.bank.servlets;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.xpdojo.bank.auth.Authenticator;
+import org.xpdojo.bank.auth.Credential;
+import org.xpdojo.bank.auth.CredentialStore;
+import org.xpdojo.bank.auth.InMemoryCredentialStore;
+import org.xpdojo.bank.auth.SessionTokens;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.stream.Collectors;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
-@WebServlet("/api/login")
+/**
+ * Authenticates a login without holding a container thread for the duration of
+ * the request: the body is read and the response written with non-blocking I/O,
+ * and the credentials are checked on a virtual thread, so that a slow check only
+ * ties up a virtual thread and bursts of logins do not exhaust the server's pool.
+ * <p>
+ * Bodies larger than {@value #MAX_BODY_BYTES} bytes are refused with a 413. The
+ * body is parsed with a streaming reader straight from the bytes received, and
+ * as there are only two possible answers, both are encoded once, up front.
+ * <p>
+ * Credentials are read from the file named by the {@value #CREDENTIALS_PARAMETER}
+ * init parameter or system property, in the format of {@link InMemoryCredentialStore};
+ * without one, the store holds just the demo user.
+ * <p>
+ * A successful login also sets a {@link SessionTokens session} cookie, so that
+ * later requests are recognised by {@link SessionFilter} without the credentials.
+ */
+@WebServlet(urlPatterns = "/api/login", asyncSupported = true)
 public class LoginServlet extends HttpServlet {
-    private static final Gson gson = new Gson();
+    private static final int MAX_BODY_BYTES = 4096;
+    private static final String CREDENTIALS_PARAMETER = "bank.credentials";
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final byte[] SUCCESS = "{\"success\":true,\"message\":\"Login successful\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FAILURE = "{\"success\":false,\"message\":\"Invalid credentials\"}".getBytes(StandardCharsets.UTF_8);
+
+    private ExecutorService authentication;
+    private Authenticator authenticator;
+    private SessionTokens sessionTokens;
 
     @Override
-    protected void doPost(HttpServletRequest request, HttpServletResponse response) 
-            throws ServletException, IOException {
-        
-        String requestBody = request.getReader().lines().collect(Collectors.joining());
-        LoginRequest loginRequest = gson.fromJson(requestBody, LoginRequest.class);
-        
-        // Simple authentication logic (replace with real authentication)
-        boolean isValid = "testuser".equals(loginRequest.username) && 
-                         "password123".equals(loginRequest.password);
-        
-        LoginResponse loginResponse = new LoginResponse();
-        loginResponse.success = isValid;
-        loginResponse.message = isValid ? "Login successful" : "Invalid credentials";
-        
+    public void init() throws ServletException {
+        authenticator = new Authenticator(credentialStore(), Instant::now);
+        sessionTokens = BankContextListener.sessionTokens(getServletContext());
+        authentication = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    private CredentialStore credentialStore() throws ServletException {
+        String file = getInitParameter(CREDENTIALS_PARAMETER);
+        if (file == null)
+            file = System.getProperty(CREDENTIALS_PARAMETER);
+        if (file == null)
+            return new InMemoryCredentialStore().put("testuser", Credential.hash("password123"));
+        try {
+            return InMemoryCredentialStore.load(Path.of(file));
+        } catch (IOException e) {
+            throw new ServletException("Could not load the credentials in " + file, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        authentication.shutdown();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > MAX_BODY_BYTES) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        async.setTimeout(TIMEOUT_MILLIS);
+        ServletInputStream input = request.getInputStream();
+        int initialSize = contentLength >= 0 ? (int) contentLength : INITIAL_BUFFER_SIZE;
+        input.setReadListener(new BodyReader(async, input, initialSize));
+    }
+
+    /**
+     * Reads the username and password, ignoring any other fields, without binding the body to an object by reflection.
+     */
+    private static LoginRequest parse(byte[] body, int length) throws IOException {
+        LoginRequest loginRequest = new LoginRequest();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body, 0, length), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "username":
+                        loginRequest.username = nextStringOrNull(reader);
+                        break;
+                    case "password":
+                        loginRequest.password = nextStringOrNull(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return loginRequest;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private boolean authenticate(LoginRequest loginRequest) {
+        return authenticator.authenticate(loginRequest.username, loginRequest.password);
+    }
+
+    private void respond(AsyncContext async, byte[] body, String username) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        if (username != null) {
+            response.addHeader("Set-Cookie", SessionFilter.SESSION_COOKIE + "=" + sessionTokens.issue(username)
+                    + "; Path=/; Max-Age=" + sessionTokens.timeToLive().getSeconds() + "; HttpOnly; SameSite=Strict");
+        }
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        PrintWriter out = response.getWriter();
-        out.print(gson.toJson(loginResponse));
-        out.flush();
+        response.setContentLength(body.length);
+        ServletOutputStream output = response.getOutputStream();
+        output.setWriteListener(new BodyWriter(async, output, body));
+    }
+
+    private void fail(AsyncContext async, int status, Throwable error) {
+        if (error != null)
+            log("Could not complete login", error);
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        if (!response.isCommitted())
+            response.setStatus(status);
+        async.complete();
+    }
+
+    /**
+     * Reads the body into a buffer as it arrives, growing the buffer up to the
+     * limit, and once it is all in hands it to a virtual thread to authenticate.
+     */
+    private class BodyReader implements ReadListener {
+        private final AsyncContext async;
+        private final ServletInputStream input;
+        private byte[] body;
+        private int length;
+        private boolean refused;
+
+        BodyReader(AsyncContext async, ServletInputStream input, int initialSize) {
+            this.async = async;
+            this.input = input;
+            this.body = new byte[Math.max(1, initialSize)];
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            while (!refused && input.isReady() && !input.isFinished()) {
+                if (length == body.length) {
+                    if (body.length < MAX_BODY_BYTES) {
+                        body = Arrays.copyOf(body, Math.min(MAX_BODY_BYTES, body.length * 2));
+                    } else if (input.read() >= 0) {
+                        refused = true;
+                        fail(async, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, null);
+                    }
+                    continue;
+                }
+                int read = input.read(body, length, body.length - length);
+                if (read > 0)
+                    length += read;
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            if (refused)
+                return;
+            authentication.execute(() -> {
+                try {
+                    LoginRequest loginRequest = parse(body, length);
+                    if (authenticate(loginRequest))
+                        respond(async, SUCCESS, loginRequest.username);
+                    else
+                        respond(async, FAILURE, null);
+                } catch (RuntimeException | IOException e) {
+                    fail(async, HttpServletResponse.SC_BAD_REQUEST, e);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fail(async, HttpServletResponse.SC_BAD_REQUEST, error);
+        }
+    }
+
+    /**
+     * Writes the response whenever the connection can take it, completing the request once it is all written.
+     */
+    private static class BodyWriter implements WriteListener {
+        private final AsyncContext async;
+        private final ServletOutputStream output;
+        private final byte[] body;
+        private boolean written;
+
+        BodyWriter(AsyncContext async, ServletOutputStream output, byte[] body) {
+            this.async = async;
+            this.output = output;
+            this.body = body;
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            if (!written && output.isReady()) {
+                output.write(body);
+                written = true;
+            }
+            if (written && output.isReady())
+                async.complete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            async.complete();
+        }
     }
 
     private static class LoginRequest {
         String username;
         String password;
     }
-
-    private static class LoginResponse {
-        boolean success;
-        String message;
-    }
 }
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.servlets;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.xpdojo.bank.auth.SessionTokens;
+
+import java.io.IOException;
+
+/**
+ * Lets a request through to the account APIs only if it carries a valid session
+ * cookie, as set by {@link LoginServlet}, and makes the user it was issued to
+ * available as the {@value #USERNAME_ATTRIBUTE} request attribute. Anything else
+ * gets a 401 without the credential store being consulted.
+ */
+@WebFilter(urlPatterns = {"/api/statement", "/api/statement/*"}, asyncSupported = true)
+public class SessionFilter extends HttpFilter {
+
+    static final String SESSION_COOKIE = "session";
+    static final String USERNAME_ATTRIBUTE = "org.xpdojo.bank.username";
+
+    private SessionTokens sessionTokens;
+
+    @Override
+    public void init() {
+        sessionTokens = BankContextListener.sessionTokens(getServletContext());
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String username = sessionTokens.validate(sessionCookie(request));
+        if (username == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        request.setAttribute(USERNAME_ATTRIBUTE, username);
+        chain.doFilter(request, response);
+    }
+
+    private static String sessionCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return null;
+        for (Cookie cookie : cookies) {
+            if (SESSION_COOKIE.equals(cookie.getName()))
+                return cookie.getValue();
+        }
+        return null;
+    }
+}
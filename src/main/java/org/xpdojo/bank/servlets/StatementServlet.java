@@ -0,0 +1,127 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.servlets;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.FullStatement;
+import org.xpdojo.bank.JsonStatement;
+import org.xpdojo.bank.PeriodStatement;
+import org.xpdojo.bank.Statement;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the statement of the logged-in user's account, as plain text or, with
+ * {@code format=json}, as a {@link JsonStatement}.
+ * <p>
+ * {@code from} and {@code to} limit the statement to a period, each either a date
+ * (midnight UTC) or an instant, {@code to} being exclusive; {@code offset} and
+ * {@code limit} select a page of it. The statement is written straight to the
+ * response as it is generated, in chunks of {@value #CHUNK_SIZE} characters, on
+ * a virtual thread rather than a container thread.
+ */
+@WebServlet(urlPatterns = "/api/statement", asyncSupported = true)
+public class StatementServlet extends HttpServlet {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private ExecutorService statements;
+    private AccountRegistry accounts;
+    private Map<String, Long> accountIds;
+
+    @Override
+    public void init() {
+        accounts = BankContextListener.accounts(getServletContext());
+        accountIds = BankContextListener.accountIds(getServletContext());
+        statements = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Override
+    public void destroy() {
+        statements.shutdown();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Long accountId = accountIds.get((String) request.getAttribute(SessionFilter.USERNAME_ATTRIBUTE));
+        Account account = accountId == null ? null : accounts.get(accountId);
+        if (account == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No account");
+            return;
+        }
+        boolean json = "json".equals(request.getParameter("format"));
+        Statement statement;
+        try {
+            statement = statementFor(request, json);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        response.setContentType(json ? "application/json" : "text/plain");
+        response.setCharacterEncoding("UTF-8");
+        response.setBufferSize(CHUNK_SIZE);
+        AsyncContext async = request.startAsync();
+        statements.execute(() -> {
+            try {
+                Writer writer = async.getResponse().getWriter();
+                statement.write(account, writer);
+                writer.flush();
+            } catch (IOException | RuntimeException e) {
+                log("Could not write the statement of account " + accountId, e);
+            } finally {
+                async.complete();
+            }
+        });
+    }
+
+    private static Statement statementFor(HttpServletRequest request, boolean json) {
+        String fromParameter = request.getParameter("from");
+        String toParameter = request.getParameter("to");
+        String offsetParameter = request.getParameter("offset");
+        String limitParameter = request.getParameter("limit");
+        if (!json && fromParameter == null && toParameter == null && offsetParameter == null && limitParameter == null)
+            return new FullStatement();
+
+        Instant from = fromParameter == null ? Instant.MIN : instantOf(fromParameter);
+        Instant to = toParameter == null ? Instant.MAX : instantOf(toParameter);
+        long offset = offsetParameter == null ? 0 : Long.parseLong(offsetParameter);
+        long limit = limitParameter == null ? Long.MAX_VALUE : Long.parseLong(limitParameter);
+        return json ? new JsonStatement(from, to, offset, limit) : new PeriodStatement(from, to, offset, limit);
+    }
+
+    private static Instant instantOf(String parameter) {
+        if (parameter.length() == 10)
+            return LocalDate.parse(parameter).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return Instant.parse(parameter);
+    }
+}
@@ -23,15 +23,24 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.xpdojo.bank.Account.accountWithBalance;
 import static org.xpdojo.bank.Account.emptyAccount;
 import static org.xpdojo.bank.Money.ZERO;
 import static org.xpdojo.bank.Money.amountOf;
+import static org.xpdojo.bank.Posting.Stamping.PER_ENTRY;
+import static org.xpdojo.bank.Result.failure;
+import static org.xpdojo.bank.Result.success;
 import static org.xpdojo.bank.Transaction.Deposit.deposit;
 import static org.xpdojo.bank.Transaction.Withdraw.withdraw;
 
@@ -119,4 +128,174 @@ class AccountTest {
 		
 		assertThat(transactions, contains(deposit(ZERO, FIXED_CLOCK.now()), deposit(amountOf(100), FIXED_CLOCK.now()), withdraw(amountOf(60), FIXED_CLOCK.now())));
 	}
+
+	@Test
+	void balanceShouldAgreeWithTheLedgerAfterManyTransactions() {
+		Account account = accountWithBalance(amountOf(50), FIXED_CLOCK);
+		for (int i = 0; i < 1000; i++) {
+			account.deposit(amountOf(i));
+			account.withdraw(amountOf(2L * i));
+		}
+
+		Money ledgerTotal = account.transactions().reduce(ZERO, (money, transaction) -> transaction.against(money), Money::plus);
+		assertThat(account.balance(), is(ledgerTotal));
+	}
+
+	@Test
+	void transferShouldReportWhetherItWasApplied() {
+		Account sender = accountWithBalance(amountOf(10), FIXED_CLOCK);
+		Account receiver = emptyAccount(FIXED_CLOCK);
+
+		assertThat(sender.transfer(amountOf(10), receiver).succeeded(), is(true));
+		assertThat(sender.transfer(amountOf(1), receiver).succeeded(), is(false));
+	}
+
+	@Test
+	void concurrentDepositsShouldAllBeRecorded() throws InterruptedException {
+		Account account = emptyAccount(FIXED_CLOCK);
+
+		runConcurrently(8, 10_000, () -> account.deposit(amountOf(1)));
+
+		assertThat(account.balance(), is(amountOf(80_000)));
+		assertThat(account.transactions().count(), is(80_001L));
+	}
+
+	@Test
+	void concurrentTransfersInBothDirectionsShouldNeitherOverdrawNorLoseMoney() throws InterruptedException {
+		Account first = accountWithBalance(amountOf(100), FIXED_CLOCK);
+		Account second = accountWithBalance(amountOf(100), FIXED_CLOCK);
+
+		runConcurrently(4, 10_000, () -> first.transfer(amountOf(3), second));
+		runConcurrently(4, 10_000, () -> {
+			first.transfer(amountOf(7), second);
+			second.transfer(amountOf(7), first);
+		});
+
+		assertThat(first.balance().plus(second.balance()), is(amountOf(200)));
+		assertThat(first.balance().isLessThan(ZERO), is(false));
+		assertThat(second.balance().isLessThan(ZERO), is(false));
+	}
+
+	@Test
+	void aBatchOfPostingsShouldBeAppliedInOrderAgainstTheRunningBalance() {
+		Account account = accountWithBalance(amountOf(10), FIXED_CLOCK);
+
+		List<Result> results = account.post(asList(
+			Posting.withdrawal(amountOf(15)),
+			Posting.deposit(amountOf(10)),
+			Posting.withdrawal(amountOf(15)),
+			Posting.withdrawal(amountOf(6))));
+
+		assertThat(results, contains(failure(), success(), success(), failure()));
+		assertThat(account.balance(), is(amountOf(5)));
+		assertThat(account.transactions().collect(Collectors.toList()), contains(
+			deposit(amountOf(10), FIXED_CLOCK.now()),
+			deposit(amountOf(10), FIXED_CLOCK.now()),
+			withdraw(amountOf(15), FIXED_CLOCK.now())));
+	}
+
+	@Test
+	void aBatchOfPostingsShouldReadTheClockOnceUnlessStampedPerEntry() {
+		AtomicInteger reads = new AtomicInteger();
+		Clock countingClock = () -> Instant.ofEpochSecond(reads.incrementAndGet());
+		Account account = emptyAccount(countingClock);
+
+		account.post(asList(Posting.deposit(amountOf(1)), Posting.deposit(amountOf(2)), Posting.deposit(amountOf(3))));
+		assertThat(reads.get(), is(2));
+
+		account.post(asList(Posting.deposit(amountOf(1)), Posting.deposit(amountOf(2))), PER_ENTRY);
+		assertThat(reads.get(), is(4));
+		assertThat(account.transactions().skip(4).collect(Collectors.toList()), contains(
+			deposit(amountOf(1), Instant.ofEpochSecond(3)),
+			deposit(amountOf(2), Instant.ofEpochSecond(4))));
+	}
+
+	@Test
+	void balanceAtAnInstantShouldIncludeOnlyTransactionsMadeUpToThatInstant() {
+		for (Ledger ledger : new Ledger[] { new ListLedger(), new ColumnarLedger() }) {
+			Account account = accountWithBalance(ZERO, secondsClock(), ledger);
+			for (int i = 1; i <= 5000; i++)
+				account.deposit(amountOf(i));
+
+			assertThat(account.balanceAt(Instant.ofEpochSecond(-1)), is(ZERO));
+			assertThat(account.balanceAt(Instant.ofEpochSecond(0)), is(ZERO));
+			assertThat(account.balanceAt(Instant.ofEpochSecond(1024)), is(amountOf(1024L * 1025 / 2)));
+			assertThat(account.balanceAt(Instant.ofEpochSecond(3000)), is(amountOf(3000L * 3001 / 2)));
+			assertThat(account.balanceAt(Instant.ofEpochSecond(9999)), is(account.balance()));
+		}
+	}
+
+	@Test
+	void transactionsBetweenTwoInstantsShouldIncludeTheStartButNotTheEnd() {
+		Account account = accountWithBalance(ZERO, secondsClock(), new ColumnarLedger());
+		for (int i = 1; i <= 3000; i++)
+			account.deposit(amountOf(i));
+
+		List<Transaction> transactions = account.transactionsBetween(Instant.ofEpochSecond(2000), Instant.ofEpochSecond(2003)).collect(Collectors.toList());
+
+		assertThat(transactions, contains(
+			deposit(amountOf(2000), Instant.ofEpochSecond(2000)),
+			deposit(amountOf(2001), Instant.ofEpochSecond(2001)),
+			deposit(amountOf(2002), Instant.ofEpochSecond(2002))));
+	}
+
+	@Test
+	void timeQueriesShouldStillBeAnsweredWhenTheClockGoesBackwards() {
+		long[] seconds = { 10, 30, 20, 40 };
+		AtomicInteger reads = new AtomicInteger();
+		Account account = emptyAccount(() -> Instant.ofEpochSecond(seconds[reads.getAndIncrement()]));
+		account.deposit(amountOf(1));
+		account.deposit(amountOf(2));
+		account.deposit(amountOf(4));
+
+		assertThat(account.balanceAt(Instant.ofEpochSecond(25)), is(amountOf(2)));
+		assertThat(account.transactionsBetween(Instant.ofEpochSecond(15), Instant.ofEpochSecond(35)).collect(Collectors.toList()), contains(
+			deposit(amountOf(1), Instant.ofEpochSecond(30)),
+			deposit(amountOf(2), Instant.ofEpochSecond(20))));
+	}
+
+	private static Clock secondsClock() {
+		AtomicInteger seconds = new AtomicInteger();
+		return () -> Instant.ofEpochSecond(seconds.getAndIncrement());
+	}
+
+	@Test
+	void aReservedAmountShouldNotBeAvailableToWithdraw() {
+		Account account = accountWithBalance(amountOf(10), FIXED_CLOCK);
+
+		assertThat(account.reserve(amountOf(8)).succeeded(), is(true));
+		assertThat(account.reserve(amountOf(3)).succeeded(), is(false));
+		assertThat(account.withdraw(amountOf(3)), is(failure()));
+		assertThat(account.balance(), is(amountOf(2)));
+
+		account.releaseReservation(amountOf(8));
+		assertThat(account.balance(), is(amountOf(10)));
+		assertThat(account.withdraw(amountOf(3)), is(success()));
+	}
+
+	@Test
+	void committingAReservationShouldWithdrawIt() {
+		Account account = accountWithBalance(amountOf(10), FIXED_CLOCK);
+		account.reserve(amountOf(4));
+
+		account.commitReservation(amountOf(4));
+
+		assertThat(account.balance(), is(amountOf(6)));
+		assertThat(account.transactions().collect(Collectors.toList()), contains(
+			deposit(amountOf(10), FIXED_CLOCK.now()),
+			withdraw(amountOf(4), FIXED_CLOCK.now())));
+		assertThrows(IllegalStateException.class, () -> account.commitReservation(amountOf(1)));
+	}
+
+	private static void runConcurrently(int threads, int iterations, Runnable action) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int thread = 0; thread < threads; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < iterations; i++)
+					action.run();
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+	}
 }
@@ -0,0 +1,104 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.time.Instant.ofEpochSecond;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.xpdojo.bank.Account.accountWithBalance;
+import static org.xpdojo.bank.Money.ZERO;
+import static org.xpdojo.bank.Money.amountOf;
+import static org.xpdojo.bank.Transaction.Deposit.deposit;
+import static org.xpdojo.bank.Transaction.Withdraw.withdraw;
+
+class ColumnarLedgerTest {
+
+	@Test
+	void transactionsShouldBeReadBackAsTheyWereAppended() {
+		Ledger ledger = new ColumnarLedger();
+		Instant withNanos = Instant.parse("2019-02-03T10:15:30.123456789Z");
+		ledger.append(deposit(amountOf(100), withNanos));
+		ledger.append(withdraw(amountOf(40), ofEpochSecond(-1)));
+		ledger.append(deposit(amountOf(-5), ofEpochSecond(2)));
+		ledger.append(withdraw(ZERO, ofEpochSecond(3)));
+
+		List<Transaction> transactions = ledger.transactions().collect(Collectors.toList());
+
+		assertThat(transactions, contains(
+			deposit(amountOf(100), withNanos),
+			withdraw(amountOf(40), ofEpochSecond(-1)),
+			deposit(amountOf(-5), ofEpochSecond(2)),
+			withdraw(ZERO, ofEpochSecond(3))));
+	}
+
+	@Test
+	void ledgerShouldGrowAcrossManyChunks() {
+		Ledger ledger = new ColumnarLedger();
+		for (int i = 0; i < 20_000; i++)
+			ledger.append(deposit(amountOf(i), ofEpochSecond(i)));
+
+		assertThat(ledger.size(), is(20_000));
+		assertThat(ledger.get(4095), is(deposit(amountOf(4095), ofEpochSecond(4095))));
+		assertThat(ledger.get(4096), is(deposit(amountOf(4096), ofEpochSecond(4096))));
+		assertThat(ledger.get(19_999), is(deposit(amountOf(19_999), ofEpochSecond(19_999))));
+	}
+
+	@Test
+	void reservingCapacityAheadOfABatchShouldNotDisturbExistingEntries() {
+		Ledger ledger = new ColumnarLedger();
+		ledger.append(deposit(amountOf(1), ofEpochSecond(1)));
+		ledger.ensureCapacity(10_000);
+		ledger.ensureCapacity(10_000);
+		for (int i = 0; i < 10_000; i++)
+			ledger.append(withdraw(amountOf(i), ofEpochSecond(i)));
+
+		assertThat(ledger.size(), is(10_001));
+		assertThat(ledger.get(0), is(deposit(amountOf(1), ofEpochSecond(1))));
+		assertThat(ledger.get(10_000), is(withdraw(amountOf(9_999), ofEpochSecond(9_999))));
+	}
+
+	@Test
+	void readingBeyondTheEndShouldFail() {
+		Ledger ledger = new ColumnarLedger();
+		ledger.append(deposit(amountOf(1), ofEpochSecond(1)));
+		assertThrows(IndexOutOfBoundsException.class, () -> ledger.get(1));
+	}
+
+	@Test
+	void anAccountShouldBehaveTheSameOnAColumnarLedger() {
+		Clock clock = () -> ofEpochSecond(7);
+		Account account = accountWithBalance(amountOf(10), clock, new ColumnarLedger());
+		account.deposit(amountOf(5));
+		account.withdraw(amountOf(12));
+		account.withdraw(amountOf(100));
+
+		assertThat(account.balance(), is(amountOf(3)));
+		assertThat(account.transactions().collect(Collectors.toList()), contains(
+			deposit(amountOf(10), clock.now()),
+			deposit(amountOf(5), clock.now()),
+			withdraw(amountOf(12), clock.now())));
+	}
+}
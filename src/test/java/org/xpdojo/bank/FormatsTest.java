@@ -0,0 +1,74 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class FormatsTest {
+
+	@ParameterizedTest(name = "{0} should be formatted as {1}")
+	@CsvSource({
+			"0, '.00'",
+			"1, '1.00'",
+			"-1, '-1.00'",
+			"7, '7.00'",
+			"10, '10.00'",
+			"999, '999.00'",
+			"-999, '-999.00'",
+			"1000, '1,000.00'",
+			"-1000, '-1,000.00'",
+			"12345, '12,345.00'",
+			"100000, '100,000.00'",
+			"999999, '999,999.00'",
+			"1000000, '1,000,000.00'",
+			"1000103, '1,000,103.00'",
+			"9223372036854775807, '9,223,372,036,854,775,807.00'",
+			"-9223372036854775808, '-9,223,372,036,854,775,808.00'",
+			"-9223372036854775807, '-9,223,372,036,854,775,807.00'"
+	})
+	void moneyShouldBeFormattedTo2DecimalPlacesWithCommas(long amount, String formatted) {
+		assertThat(Formats.money(amount), is(formatted));
+	}
+
+	@Test
+	void moneyShouldBeAppendedToWhateverIsAlreadyInTheBuilder() {
+		StringBuilder builder = new StringBuilder("balance: ");
+		assertThat(Formats.appendMoney(builder, -4500).toString(), is("balance: -4,500.00"));
+	}
+
+	@Test
+	void valuesShouldBePaddedOnTheLeftToTheGivenWidth() {
+		assertThat(Formats.padLeft(new StringBuilder(), "1.00", 6).toString(), is("  1.00"));
+		assertThat(Formats.padLeft(new StringBuilder(), "1,000.00", 6).toString(), is("1,000.00"));
+	}
+
+	@Test
+	void datesAndTimesShouldBeFormattedInUtc() {
+		Instant instant = Instant.parse("2019-02-03T23:15:30Z");
+		assertThat(Formats.DATE.format(instant), is("03/02/2019"));
+		assertThat(Formats.SHORT_DATE.format(instant), is("03/02/19"));
+		assertThat(Formats.TIME.format(instant), is("23:15"));
+	}
+}
@@ -26,6 +26,8 @@ import java.time.Instant;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.lessThan;
+import static org.xpdojo.bank.Account.accountWithBalance;
 import static org.xpdojo.bank.Account.emptyAccount;
 import static org.xpdojo.bank.Money.amountOf;
 
@@ -61,6 +63,20 @@ class FullStatementTest {
 		assertThat(statement, containsString("balance: " + amountOf(16).toString()));
 	}
 	
+	@Test
+	void aFullStatementShouldShowWhatIsReservedForTransfersInFlight() throws IOException {
+		Account account = accountWithBalance(amountOf(100), new IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		account.reserve(amountOf(30));
+
+		String statement = generateStatement(account);
+
+		assertThat(statement, endsWith("balance: " + amountOf(100) + "\nreserved: " + amountOf(30) + "\navailable: " + amountOf(70)));
+		assertThat(account.balance(), is(amountOf(70)));
+
+		account.commitReservation(amountOf(30));
+		assertThat(generateStatement(account), endsWith("balance: " + amountOf(70)));
+	}
+
 	@Test
 	void aFullStatementIncludesARunningBalance() throws IOException {
 		Account account = emptyAccount(new IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
@@ -75,6 +91,38 @@ class FullStatementTest {
 		assertThat(statement, containsString(amountOf(16).toString()));
 	}
 
+	@Test
+	void aFullStatementShouldBeWrittenOutALineAtATime() throws IOException {
+		Account account = emptyAccount(new IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		for (int i = 0; i < 1000; i++)
+			account.deposit(amountOf(i));
+
+		LargestWriteWriter writer = new LargestWriteWriter();
+		new FullStatement().write(account, writer);
+
+		assertThat(writer.largestWrite, is(lessThan(100)));
+		assertThat(writer.toString(), containsString("balance: " + amountOf(499_500).toString()));
+	}
+
+	@Test
+	void runningBalancesWorkedOutInParallelShouldMatchThoseWorkedOutInSequence() throws IOException {
+		for (Ledger ledger : new Ledger[] { new ListLedger(), new ColumnarLedger() }) {
+			Account account = accountWithBalance(amountOf(100), new IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")), ledger);
+			for (int i = 0; i < 10_000; i++) {
+				account.deposit(amountOf(i % 97));
+				account.withdraw(amountOf(i % 89));
+			}
+
+			Writer sequential = new StringWriter();
+			new FullStatement(Integer.MAX_VALUE).write(account, sequential);
+			Writer parallel = new StringWriter();
+			new FullStatement(1).write(account, parallel);
+
+			assertThat(parallel.toString(), is(sequential.toString()));
+			assertThat(parallel.toString(), endsWith("balance: " + account.balance()));
+		}
+	}
+
 	private String generateStatement(Account account) throws IOException {
 		FullStatement statement = new FullStatement();
 		Writer writer = new StringWriter();
@@ -82,6 +130,29 @@ class FullStatementTest {
 		return writer.toString();
 	}
 
+	private static class LargestWriteWriter extends StringWriter {
+
+		private int largestWrite;
+
+		@Override
+		public void write(String str) {
+			largestWrite = Math.max(largestWrite, str.length());
+			super.write(str);
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			largestWrite = Math.max(largestWrite, len);
+			super.write(str, off, len);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			largestWrite = Math.max(largestWrite, len);
+			super.write(cbuf, off, len);
+		}
+	}
+
 	static class IncrementingClock implements Clock {
 
 		private final Instant initial;
@@ -0,0 +1,261 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.xpdojo.bank.Money.amountOf;
+import static org.xpdojo.bank.Transaction.Deposit.depositOf;
+
+class JournalTest {
+
+	private static final Clock FIXED_CLOCK = () -> Instant.parse("2019-02-03T10:15:30Z");
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void accountsShouldBeRecoveredWithTheirFullHistory() throws IOException {
+		List<Transaction> first;
+		List<Transaction> second;
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account one = journal.newAccount(1, amountOf(100), new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+			Account two = journal.newAccount(2, amountOf(5), FIXED_CLOCK);
+			for (int i = 0; i < 10; i++) {
+				one.withdraw(amountOf(7));
+				two.deposit(amountOf(i));
+				one.transfer(amountOf(3), two);
+			}
+			one.withdraw(amountOf(1_000));
+			first = one.transactions().collect(Collectors.toList());
+			second = two.transactions().collect(Collectors.toList());
+		}
+
+		try (Journal journal = Journal.open(directory, 4)) {
+			Map<Long, Account> accounts = journal.recover(FIXED_CLOCK);
+
+			assertThat(accounts.keySet(), is(Set.of(1L, 2L)));
+			assertThat(accounts.get(1L).balance(), is(amountOf(0)));
+			assertThat(accounts.get(2L).balance(), is(amountOf(80)));
+			assertThat(accounts.get(1L).transactions().collect(Collectors.toList()), is(first));
+			assertThat(accounts.get(2L).transactions().collect(Collectors.toList()), is(second));
+		}
+	}
+
+	@Test
+	void recoveredAccountsShouldCarryOnJournalling() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			journal.newAccount(7, amountOf(10), FIXED_CLOCK).deposit(amountOf(1));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account account = journal.recover(FIXED_CLOCK).get(7L);
+			account.deposit(amountOf(2));
+			account.withdraw(amountOf(4));
+			assertThat(journal.size(), is(4L));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			assertThat(journal.recover(FIXED_CLOCK).get(7L).balance(), is(amountOf(9)));
+		}
+	}
+
+	@Test
+	void anAccountShouldOnlyBeOpenedOnce() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			journal.newAccount(7, amountOf(10), FIXED_CLOCK);
+			assertThrows(IllegalStateException.class, () -> journal.newAccount(7, amountOf(20), FIXED_CLOCK));
+			assertThat(journal.size(), is(1L));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			journal.recover(FIXED_CLOCK);
+			assertThrows(IllegalStateException.class, () -> journal.newAccount(7, amountOf(20), FIXED_CLOCK));
+			journal.newAccount(8, amountOf(20), FIXED_CLOCK);
+		}
+	}
+
+	@Test
+	void anExistingJournalShouldBeRecoveredOnceBeforeOpeningAccounts() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			journal.newAccount(7, amountOf(10), FIXED_CLOCK);
+			assertThrows(IllegalStateException.class, () -> journal.recover(FIXED_CLOCK));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			assertThrows(IllegalStateException.class, () -> journal.newAccount(8, amountOf(20), FIXED_CLOCK));
+			journal.recover(FIXED_CLOCK);
+			assertThrows(IllegalStateException.class, () -> journal.recover(FIXED_CLOCK));
+			assertThat(journal.size(), is(1L));
+		}
+	}
+
+	@Test
+	void anEmptyJournalShouldRecoverNoAccounts() throws IOException {
+		try (Journal journal = Journal.open(directory)) {
+			assertThat(journal.recover(FIXED_CLOCK).isEmpty(), is(true));
+			assertThat(journal.size(), is(0L));
+		}
+	}
+
+	@Test
+	void recoveryShouldStopAtARecordThatNeverReachedTheDisk() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account account = journal.newAccount(1, amountOf(10), FIXED_CLOCK);
+			for (int i = 1; i <= 5; i++)
+				account.deposit(amountOf(i));
+		}
+		try (FileChannel segment = FileChannel.open(directory.resolve("journal-0000000000.seg"), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.allocate(32), 2 * 32);
+		}
+
+		try (Journal journal = Journal.open(directory, 4)) {
+			assertThat(journal.size(), is(2L));
+			Account account = journal.recover(FIXED_CLOCK).get(1L);
+			assertThat(account.balance(), is(amountOf(11)));
+			account.deposit(amountOf(100));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			assertThat(journal.size(), is(3L));
+			assertThat(journal.recover(FIXED_CLOCK).get(1L).balance(), is(amountOf(111)));
+		}
+		assertThat(Files.exists(directory.resolve("journal-0000000001.seg")), is(false));
+	}
+
+	@Test
+	void warmStartShouldReplayOnlyTheJournalSinceTheSnapshot() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account account = journal.newAccount(1, amountOf(100), FIXED_CLOCK);
+			for (int i = 0; i < 9; i++)
+				account.withdraw(amountOf(5));
+			journal.snapshot();
+			account.deposit(amountOf(20));
+		}
+
+		assertThat(Files.exists(directory.resolve("archive").resolve("journal-0000000000.seg")), is(true));
+		assertThat(Files.exists(directory.resolve("archive").resolve("journal-0000000001.seg")), is(true));
+		assertThat(Files.exists(directory.resolve("journal-0000000000.seg")), is(false));
+
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account account = journal.recover(FIXED_CLOCK).get(1L);
+
+			assertThat(account.balance(), is(amountOf(75)));
+			assertThat(account.transactions().collect(Collectors.toList()), is(List.of(
+					depositOf(amountOf(55), FIXED_CLOCK.now()),
+					depositOf(amountOf(20), FIXED_CLOCK.now()))));
+		}
+	}
+
+	@Test
+	void snapshotsShouldBuildOnThePreviousSnapshot() throws IOException {
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account one = journal.newAccount(1, amountOf(10), FIXED_CLOCK);
+			journal.snapshot();
+			Account two = journal.newAccount(2, amountOf(30), FIXED_CLOCK);
+			one.transfer(amountOf(4), two);
+			journal.snapshot();
+			two.withdraw(amountOf(1));
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			Map<Long, Account> accounts = journal.recover(FIXED_CLOCK);
+
+			assertThat(accounts.get(1L).balance(), is(amountOf(6)));
+			assertThat(accounts.get(2L).balance(), is(amountOf(33)));
+			try (Stream<Path> snapshots = Files.list(directory).filter(file -> file.getFileName().toString().startsWith("snapshot-"))) {
+				assertThat(snapshots.count(), is(1L));
+			}
+		}
+	}
+
+	@Test
+	void concurrentSnapshotsShouldBeTakenOneAtATime() throws Exception {
+		try (Journal journal = Journal.open(directory, 4)) {
+			Account account = journal.newAccount(1, amountOf(0), FIXED_CLOCK);
+			ExecutorService snapshotters = Executors.newFixedThreadPool(4);
+			List<Future<Path>> snapshots = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				account.deposit(amountOf(1));
+				snapshots.add(snapshotters.submit(journal::snapshot));
+			}
+			snapshotters.shutdown();
+			for (Future<Path> snapshot : snapshots)
+				snapshot.get();
+		}
+		try (Journal journal = Journal.open(directory, 4)) {
+			assertThat(journal.recover(FIXED_CLOCK).get(1L).balance(), is(amountOf(200)));
+			assertThat(journal.history(1, FIXED_CLOCK).transactions().count(), is(201L));
+			try (Stream<Path> snapshots = Files.list(directory).filter(file -> file.getFileName().toString().startsWith("snapshot-"))) {
+				assertThat(snapshots.count(), is(1L));
+			}
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void scheduledSnapshotsShouldCoverNewRecords() throws Exception {
+		try (Journal journal = Journal.open(directory, 2)) {
+			Account account = journal.newAccount(5, amountOf(10), FIXED_CLOCK);
+			journal.snapshotEvery(Duration.ofMillis(10));
+			account.deposit(amountOf(1));
+			account.deposit(amountOf(2));
+			while (!Files.exists(directory.resolve("snapshot-0000000000000000003.bin")))
+				Thread.sleep(10);
+			assertThrows(IllegalStateException.class, () -> journal.snapshotEvery(Duration.ofMillis(10)));
+		}
+		assertThat(Files.exists(directory.resolve("archive").resolve("journal-0000000000.seg")), is(true));
+		try (Journal journal = Journal.open(directory, 2)) {
+			assertThat(journal.recover(FIXED_CLOCK).get(5L).balance(), is(amountOf(13)));
+		}
+	}
+
+	@Test
+	void historyShouldIncludeArchivedTransactions() throws IOException {
+		try (Journal journal = Journal.open(directory, 2)) {
+			Account account = journal.newAccount(3, amountOf(10), FIXED_CLOCK);
+			journal.newAccount(4, amountOf(99), FIXED_CLOCK);
+			account.withdraw(amountOf(1));
+			account.withdraw(amountOf(2));
+			journal.snapshot();
+			account.deposit(amountOf(3));
+
+			Account history = journal.history(3, FIXED_CLOCK);
+
+			assertThat(history.balance(), is(amountOf(10)));
+			assertThat(history.transactions().count(), is(4L));
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.xpdojo.bank.Account.emptyAccount;
+import static org.xpdojo.bank.Money.amountOf;
+
+class JsonStatementTest {
+
+	@Test
+	void aJsonStatementShouldListEveryTransactionWithItsRunningBalance() throws IOException {
+		Account account = emptyAccount(new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		account.deposit(amountOf(1_000));
+		account.withdraw(amountOf(15));
+
+		String statement = generateStatement(account, new JsonStatement());
+
+		String expected = "{\"openingBalance\":0,\"transactions\":[" +
+			"\n{\"date\":\"2019-02-23T10:15:00Z\",\"type\":\"Deposit\",\"amount\":0,\"balance\":0}," +
+			"\n{\"date\":\"2019-02-23T11:15:00Z\",\"type\":\"Deposit\",\"amount\":1000,\"balance\":1000}," +
+			"\n{\"date\":\"2019-02-23T12:15:00Z\",\"type\":\"Withdraw\",\"amount\":15,\"balance\":985}" +
+			"\n],\"closingBalance\":985,\"more\":false}";
+		assertThat(statement, is(expected));
+	}
+
+	@Test
+	void aPageShouldSayWhetherThereIsMore() throws IOException {
+		Account account = emptyAccount(new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		for (int i = 1; i <= 5; i++)
+			account.deposit(amountOf(i));
+
+		JsonObject firstPage = JsonParser.parseString(generateStatement(account, new JsonStatement(Instant.MIN, Instant.MAX, 1, 2))).getAsJsonObject();
+		JsonObject lastPage = JsonParser.parseString(generateStatement(account, new JsonStatement(Instant.MIN, Instant.MAX, 4, 2))).getAsJsonObject();
+		JsonObject period = JsonParser.parseString(generateStatement(account,
+			new JsonStatement(Instant.parse("2019-02-23T13:15:00Z"), Instant.parse("2019-02-23T15:00:00Z")))).getAsJsonObject();
+
+		assertThat(firstPage.get("openingBalance").getAsLong(), is(0L));
+		assertThat(firstPage.getAsJsonArray("transactions").size(), is(2));
+		assertThat(firstPage.get("closingBalance").getAsLong(), is(3L));
+		assertThat(firstPage.get("more").getAsBoolean(), is(true));
+		assertThat(lastPage.getAsJsonArray("transactions").size(), is(2));
+		assertThat(lastPage.get("closingBalance").getAsLong(), is(15L));
+		assertThat(lastPage.get("more").getAsBoolean(), is(false));
+		assertThat(period.get("openingBalance").getAsLong(), is(3L));
+		assertThat(period.get("closingBalance").getAsLong(), is(10L));
+	}
+
+	private static String generateStatement(Account account, Statement statement) throws IOException {
+		StringWriter writer = new StringWriter();
+		statement.write(account, writer);
+		return writer.toString();
+	}
+}
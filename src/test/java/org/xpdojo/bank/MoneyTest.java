@@ -69,4 +69,17 @@ class MoneyTest {
 	void stringRepresentationShouldBeFormattedTo2DecimalPlacesWithCommas() {
 		assertThat(amountOf(1000103).toString(), is("1,000,103.00"));
 	}
-}
\ No newline at end of file
+
+	@ParameterizedTest(name = "amountOf({0}) should equal a computed {0}")
+	@CsvSource({
+			"0",
+			"1024",
+			"1025",
+			"-129",
+			"9223372036854775807"
+	})
+	void equalAmountsShouldBeEqualWhetherCachedOrNot(long amount) {
+		assertThat(amountOf(amount), is(amountOf(amount - 1).plus(amountOf(1))));
+		assertThat(amountOf(amount).hashCode(), is(amountOf(amount - 1).plus(amountOf(1)).hashCode()));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.xpdojo.bank.Account.emptyAccount;
+import static org.xpdojo.bank.Money.amountOf;
+
+class PeriodStatementTest {
+
+	private static final String NEW_LINE = System.getProperty("line.separator");
+
+	@Test
+	void aPeriodStatementShouldOnlyIncludeTransactionsInThePeriodWithTheBalanceBroughtForward() throws IOException {
+		Account account = emptyAccount(new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		account.deposit(amountOf(10));
+		account.deposit(amountOf(20));
+		account.withdraw(amountOf(15));
+		account.deposit(amountOf(100));
+
+		String statement = generateStatement(account, Instant.parse("2019-02-23T12:15:00Z"), Instant.parse("2019-02-23T14:15:00Z"));
+
+		String expected =
+			"opening balance: 10.00" + NEW_LINE +
+			"23/02/2019 12:15 Deposit 20.00 30.00" + NEW_LINE +
+			"23/02/2019 13:15 Withdraw 15.00 15.00" +
+			"\n\nbalance: 15.00";
+		assertThat(statement, is(expected));
+	}
+
+	@Test
+	void aPeriodWithNoTransactionsShouldCarryTheBalanceThrough() throws IOException {
+		Account account = emptyAccount(new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		account.deposit(amountOf(10));
+
+		String statement = generateStatement(account, Instant.parse("2019-03-01T00:00:00Z"), Instant.parse("2019-04-01T00:00:00Z"));
+
+		assertThat(statement, is("opening balance: 10.00" + "\n\nbalance: 10.00"));
+	}
+
+	@Test
+	void aPageOfAPeriodShouldBringForwardTheBalanceOfTheLinesBeforeIt() throws IOException {
+		Account account = emptyAccount(new FullStatementTest.IncrementingClock(Instant.parse("2019-02-23T10:15:00Z")));
+		account.deposit(amountOf(10));
+		account.deposit(amountOf(20));
+		account.withdraw(amountOf(15));
+		account.deposit(amountOf(100));
+
+		Writer writer = new StringWriter();
+		new PeriodStatement(Instant.parse("2019-02-23T11:00:00Z"), Instant.MAX, 1, 2).write(account, writer);
+
+		String expected =
+			"opening balance: 10.00" + NEW_LINE +
+			"23/02/2019 12:15 Deposit 20.00 30.00" + NEW_LINE +
+			"23/02/2019 13:15 Withdraw 15.00 15.00" +
+			"\n\nbalance: 15.00";
+		assertThat(writer.toString(), is(expected));
+	}
+
+	private String generateStatement(Account account, Instant from, Instant to) throws IOException {
+		Writer writer = new StringWriter();
+		new PeriodStatement(from, to).write(account, writer);
+		return writer.toString();
+	}
+}
@@ -98,4 +98,20 @@ class TransactionTest {
 		assertThat(withdraw(amountOf(100), now), is(withdraw(amountOf(100), now)));
 	}
 
-}
\ No newline at end of file
+	@Test
+	void primitiveFoldShouldAgreeWithMoneyFold() {
+		List<Transaction> transactions = asList(
+			deposit(amountOf(10), ofEpochSecond(1)),
+			withdraw(amountOf(25), ofEpochSecond(2)),
+			deposit(amountOf(3), ofEpochSecond(3))
+		);
+
+		long total = 0;
+		for (Transaction transaction : transactions)
+			total = transaction.against(total);
+
+		Money expected = transactions.stream().reduce(ZERO, (money, transaction) -> transaction.against(money), Money::plus);
+		assertThat(amountOf(total), is(expected));
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xpdojo.bank.Clock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class AuthenticatorTest {
+
+	private static final int FAST = 1_000;
+
+	private Instant now = Instant.parse("2019-02-03T10:15:30Z");
+	private final Clock clock = () -> now;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void onlyTheRightPasswordShouldAuthenticate() {
+		Authenticator authenticator = new Authenticator(storeOf("testuser", "password123"), clock);
+
+		assertThat(authenticator.authenticate("testuser", "password123"), is(true));
+		assertThat(authenticator.authenticate("testuser", "password124"), is(false));
+		assertThat(authenticator.authenticate("someone", "password123"), is(false));
+		assertThat(authenticator.authenticate(null, null), is(false));
+	}
+
+	@Test
+	void anUnknownUserShouldStillHaveTheirPasswordHashed() {
+		Authenticator authenticator = new Authenticator(storeOf("testuser", "password123"), clock);
+
+		assertThat(authenticator.authenticate("someone", "password123"), is(false));
+		assertThat(authenticator.passwordsHashed(), is(1L));
+		assertThat(authenticator.authenticate("testuser", "wrong"), is(false));
+		assertThat(authenticator.passwordsHashed(), is(2L));
+	}
+
+	@Test
+	void anUnknownUserShouldBeCheckedAtTheStoresTypicalCost() {
+		InMemoryCredentialStore store = storeOf("testuser", "password123")
+			.put("other", Credential.hash("secret", FAST))
+			.put("old", Credential.hash("secret", FAST / 2));
+		Authenticator authenticator = new Authenticator(store, clock);
+
+		assertThat(store.typicalIterations(), is(FAST));
+		assertThat(authenticator.standIn().iterations(), is(FAST));
+
+		store.put("testuser", Credential.hash("password123", FAST / 2))
+			.put("other", Credential.hash("secret", FAST / 2));
+		assertThat(store.typicalIterations(), is(FAST / 2));
+		assertThat(authenticator.standIn().iterations(), is(FAST / 2));
+		assertThat(new InMemoryCredentialStore().typicalIterations(), is(Credential.DEFAULT_ITERATIONS));
+	}
+
+	@Test
+	void aRecentSuccessShouldNotBeHashedAgainUntilItExpires() {
+		Authenticator authenticator = new Authenticator(storeOf("testuser", "password123"), clock, 10, Duration.ofMinutes(5));
+
+		authenticator.authenticate("testuser", "password123");
+		assertThat(authenticator.cacheHits(), is(0L));
+		assertThat(authenticator.authenticate("testuser", "password123"), is(true));
+		assertThat(authenticator.cacheHits(), is(1L));
+		assertThat(authenticator.authenticate("testuser", "wrong"), is(false));
+		assertThat(authenticator.cacheHits(), is(1L));
+
+		now = now.plus(Duration.ofMinutes(5));
+		assertThat(authenticator.authenticate("testuser", "password123"), is(true));
+		assertThat(authenticator.cacheHits(), is(1L));
+	}
+
+	@Test
+	void theCacheShouldEvictTheLeastRecentlyUsedUser() {
+		InMemoryCredentialStore store = new InMemoryCredentialStore()
+				.put("one", Credential.hash("1", FAST))
+				.put("two", Credential.hash("2", FAST));
+		Authenticator authenticator = new Authenticator(store, clock, 1, Duration.ofMinutes(5));
+
+		authenticator.authenticate("one", "1");
+		authenticator.authenticate("two", "2");
+		authenticator.authenticate("one", "1");
+		assertThat(authenticator.cacheHits(), is(0L));
+
+		authenticator.authenticate("one", "1");
+		assertThat(authenticator.cacheHits(), is(1L));
+	}
+
+	@Test
+	void aChangedPasswordShouldTakeEffectAtOnce() {
+		InMemoryCredentialStore store = storeOf("testuser", "password123");
+		Authenticator authenticator = new Authenticator(store, clock);
+		authenticator.authenticate("testuser", "password123");
+
+		store.put("testuser", Credential.hash("changed", FAST));
+
+		assertThat(authenticator.authenticate("testuser", "password123"), is(false));
+		assertThat(authenticator.authenticate("testuser", "changed"), is(true));
+	}
+
+	@Test
+	void credentialsShouldSurviveSavingAndLoading() throws IOException {
+		Path file = directory.resolve("credentials");
+		storeOf("testuser", "password123").save(file);
+
+		CredentialStore loaded = InMemoryCredentialStore.load(file);
+
+		assertThat(loaded.find("testuser").matches("password123"), is(true));
+		assertThat(loaded.find("testuser").matches("password"), is(false));
+	}
+
+	private static InMemoryCredentialStore storeOf(String username, String password) {
+		return new InMemoryCredentialStore().put(username, Credential.hash(password, FAST));
+	}
+}
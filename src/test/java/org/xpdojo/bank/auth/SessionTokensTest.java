@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.auth;
+
+import org.junit.jupiter.api.Test;
+import org.xpdojo.bank.Clock;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class SessionTokensTest {
+
+	private Instant now = Instant.parse("2019-02-03T10:15:30Z");
+	private final Clock clock = () -> now;
+	private final SessionTokens tokens = new SessionTokens(SessionTokens.randomKey(), clock, Duration.ofMinutes(30));
+
+	@Test
+	void aTokenShouldIdentifyTheUserItWasIssuedTo() {
+		assertThat(tokens.validate(tokens.issue("testuser")), is("testuser"));
+		assertThat(tokens.validate(tokens.issue("ünïcødé.user")), is("ünïcødé.user"));
+	}
+
+	@Test
+	void aTokenShouldExpire() {
+		String token = tokens.issue("testuser");
+
+		now = now.plus(Duration.ofMinutes(30)).minusSeconds(1);
+		assertThat(tokens.validate(token), is("testuser"));
+		now = now.plusSeconds(1);
+		assertThat(tokens.validate(token), is(nullValue()));
+	}
+
+	@Test
+	void aTamperedTokenShouldBeRejected() {
+		String token = tokens.issue("testuser");
+		String otherUser = tokens.issue("admin");
+		String[] parts = token.split("\\.");
+
+		assertThat(tokens.validate((Long.parseLong(parts[0]) + 1000) + "." + parts[1] + "." + parts[2]), is(nullValue()));
+		assertThat(tokens.validate(parts[0] + "." + otherUser.split("\\.")[1] + "." + parts[2]), is(nullValue()));
+		assertThat(tokens.validate(token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A")), is(nullValue()));
+	}
+
+	@Test
+	void aTokenSignedWithAnotherKeyShouldBeRejected() {
+		SessionTokens other = new SessionTokens(SessionTokens.randomKey(), clock);
+
+		assertThat(tokens.validate(other.issue("testuser")), is(nullValue()));
+	}
+
+	@Test
+	void malformedTokensShouldBeRejected() {
+		assertThat(tokens.validate(null), is(nullValue()));
+		assertThat(tokens.validate(""), is(nullValue()));
+		assertThat(tokens.validate("..."), is(nullValue()));
+		assertThat(tokens.validate("not a token"), is(nullValue()));
+		assertThat(tokens.validate("x".repeat(10_000)), is(nullValue()));
+		assertThat(tokens.validate("1.dGVzdHVzZXI.é" + "x".repeat(42)), is(nullValue()));
+	}
+}
@@ -0,0 +1,290 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.xpdojo.bank.Clock;
+import org.xpdojo.bank.ListLedger;
+import org.xpdojo.bank.Money;
+import org.xpdojo.bank.Result;
+import org.xpdojo.bank.Transaction;
+import org.xpdojo.bank.registry.AccountRegistry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.xpdojo.bank.Account.accountWithBalance;
+import static org.xpdojo.bank.Money.amountOf;
+
+class PostingEngineTest {
+
+	private static final Clock FIXED_CLOCK = () -> Instant.parse("2019-02-03T10:15:30Z");
+
+	@Test
+	void commandsShouldBeAppliedAndCompleteTheirResults() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+		registry.putIfAbsent(2, accountWithBalance(amountOf(0), FIXED_CLOCK));
+
+		try (PostingEngine engine = new PostingEngine(registry, 2, 8)) {
+			assertThat(engine.deposit(1, amountOf(5)).get().succeeded(), is(true));
+			assertThat(engine.withdraw(1, amountOf(20)).get().succeeded(), is(false));
+			assertThat(engine.transfer(1, 2, amountOf(12)).get().succeeded(), is(true));
+		}
+
+		assertThat(registry.get(1).balance(), is(amountOf(3)));
+		assertThat(registry.get(2).balance(), is(amountOf(12)));
+	}
+
+	@Test
+	@Timeout(10)
+	void aCallbackShouldBeAbleToPostToItsOwnShardAndWait() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+
+		try (PostingEngine engine = new PostingEngine(registry, 1, 8)) {
+			CompletableFuture<Result> withdrawal = engine.deposit(1, amountOf(5))
+					.thenApply(deposit -> engine.withdraw(1, amountOf(15)).join());
+
+			assertThat(withdrawal.get(5, TimeUnit.SECONDS).succeeded(), is(true));
+		}
+		assertThat(registry.get(1).balance(), is(amountOf(0)));
+	}
+
+	@Test
+	void commandsForAnUnknownAccountShouldFail() {
+		try (PostingEngine engine = new PostingEngine(new AccountRegistry(), 1, 8)) {
+			ExecutionException thrown = assertThrows(ExecutionException.class, () -> engine.deposit(9, amountOf(1)).get());
+			assertThat(thrown.getCause(), is(instanceOf(IllegalArgumentException.class)));
+		}
+	}
+
+	@Test
+	void commandsForAnAccountShouldBeAppliedInTheOrderTheyWerePosted() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(0), FIXED_CLOCK));
+
+		List<CompletableFuture<Result>> withdrawals = new ArrayList<>();
+		try (PostingEngine engine = new PostingEngine(registry, 4, 4)) {
+			for (int i = 0; i < 100; i++) {
+				engine.deposit(1, amountOf(1));
+				withdrawals.add(engine.withdraw(1, amountOf(1)));
+			}
+		}
+
+		for (CompletableFuture<Result> withdrawal : withdrawals)
+			assertThat(withdrawal.get().succeeded(), is(true));
+		assertThat(registry.get(1).balance(), is(amountOf(0)));
+	}
+
+	@Test
+	void concurrentTransfersShouldConserveMoney() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		for (long id = 0; id < 16; id++)
+			registry.putIfAbsent(id, accountWithBalance(amountOf(1_000), FIXED_CLOCK));
+
+		ExecutorService producers = Executors.newFixedThreadPool(4);
+		try (PostingEngine engine = new PostingEngine(registry, 4, 64)) {
+			for (int producer = 0; producer < 4; producer++) {
+				int seed = producer;
+				producers.execute(() -> {
+					for (int i = 0; i < 10_000; i++)
+						engine.transfer((seed + i) % 16, (seed * 7 + i * 3) % 16, amountOf(i % 50));
+				});
+			}
+			producers.shutdown();
+			assertThat(producers.awaitTermination(30, TimeUnit.SECONDS), is(true));
+		}
+
+		Money[] total = {Money.ZERO};
+		registry.forEach((account, id) -> total[0] = total[0].plus(account.balance()));
+		assertThat(total[0], is(amountOf(16_000)));
+	}
+
+	@Test
+	void aTransferBetweenShardsShouldReserveCreditAndThenSettle() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		try (PostingEngine engine = new PostingEngine(registry, 2, 8)) {
+			long sender = 1;
+			long receiver = idOnOtherShard(engine, sender);
+			registry.putIfAbsent(sender, accountWithBalance(amountOf(10), FIXED_CLOCK));
+			registry.putIfAbsent(receiver, accountWithBalance(amountOf(0), FIXED_CLOCK));
+
+			assertThat(engine.transfer(sender, receiver, amountOf(7)).get().succeeded(), is(true));
+			assertThat(engine.transfer(sender, receiver, amountOf(7)).get().succeeded(), is(false));
+
+			assertThat(registry.get(sender).balance(), is(amountOf(3)));
+			assertThat(registry.get(receiver).balance(), is(amountOf(7)));
+		}
+	}
+
+	@Test
+	void aTransferToAMissingAccountOnAnotherShardShouldReleaseTheReservation() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+		try (PostingEngine engine = new PostingEngine(registry, 2, 8)) {
+			ExecutionException thrown = assertThrows(ExecutionException.class,
+					() -> engine.transfer(1, idOnOtherShard(engine, 1), amountOf(10)).get());
+			assertThat(thrown.getCause(), is(instanceOf(IllegalArgumentException.class)));
+
+			assertThat(engine.withdraw(1, amountOf(10)).get().succeeded(), is(true));
+		}
+	}
+
+	@Test
+	void moneyInFlightBetweenShardsShouldNotBeCountedTwice() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		try (PostingEngine engine = new PostingEngine(registry, 2, 8)) {
+			long sender = 1;
+			long receiver = idOnOtherShard(engine, sender);
+			long senderShardBlocker = idOnSameShard(engine, sender);
+			long receiverShardBlocker = idOnSameShard(engine, receiver);
+			ControlledLedger senderShard = new ControlledLedger();
+			ControlledLedger receiverShard = new ControlledLedger();
+			registry.putIfAbsent(sender, accountWithBalance(amountOf(10), FIXED_CLOCK));
+			registry.putIfAbsent(receiver, accountWithBalance(amountOf(0), FIXED_CLOCK));
+			registry.putIfAbsent(senderShardBlocker, accountWithBalance(amountOf(0), FIXED_CLOCK, senderShard));
+			registry.putIfAbsent(receiverShardBlocker, accountWithBalance(amountOf(0), FIXED_CLOCK, receiverShard));
+
+			// hold the receiver's shard until the sender's has reserved and is itself held,
+			// so the receiver is credited while the sender cannot yet take the commit
+			senderShard.closeGate();
+			receiverShard.closeGate();
+			CompletableFuture<Result> transfer;
+			try {
+				engine.deposit(receiverShardBlocker, amountOf(1));
+				receiverShard.entered.await();
+				transfer = engine.transfer(sender, receiver, amountOf(7));
+				engine.deposit(senderShardBlocker, amountOf(1));
+				senderShard.entered.await();
+				receiverShard.gate.countDown();
+				while (registry.get(receiver).balance().isLessThan(amountOf(7)))
+					Thread.onSpinWait();
+
+				assertThat(transfer.isDone(), is(false));
+				assertThat(registry.get(sender).balance().plus(registry.get(receiver).balance()), is(amountOf(10)));
+			} finally {
+				receiverShard.gate.countDown();
+				senderShard.gate.countDown();
+			}
+			assertThat(transfer.get().succeeded(), is(true));
+			assertThat(registry.get(sender).balance().plus(registry.get(receiver).balance()), is(amountOf(10)));
+		}
+	}
+
+	@Test
+	void aFailedCreditShouldReleaseTheReservationWithItsCause() throws Exception {
+		AccountRegistry registry = new AccountRegistry();
+		ControlledLedger receiverLedger = new ControlledLedger();
+		try (PostingEngine engine = new PostingEngine(registry, 2, 8)) {
+			long receiver = idOnOtherShard(engine, 1);
+			registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+			registry.putIfAbsent(receiver, accountWithBalance(amountOf(0), FIXED_CLOCK, receiverLedger));
+			receiverLedger.failure = new IllegalStateException("Ledger is read-only");
+
+			ExecutionException thrown = assertThrows(ExecutionException.class,
+					() -> engine.transfer(1, receiver, amountOf(10)).get());
+			assertThat(thrown.getCause(), is(sameInstance(receiverLedger.failure)));
+
+			assertThat(registry.get(1).balance(), is(amountOf(10)));
+			assertThat(engine.withdraw(1, amountOf(10)).get().succeeded(), is(true));
+		}
+	}
+
+	@Test
+	void commandsPostedAfterCloseShouldBeRejected() {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+		PostingEngine engine = new PostingEngine(registry, 1, 8);
+		engine.close();
+
+		ExecutionException thrown = assertThrows(ExecutionException.class, () -> engine.deposit(1, amountOf(1)).get());
+		assertThat(thrown.getCause(), is(instanceOf(RejectedExecutionException.class)));
+	}
+
+	@Test
+	@Timeout(10)
+	void commandsPostedAfterCloseShouldBeRejectedWithoutFillingTheRing() {
+		AccountRegistry registry = new AccountRegistry();
+		registry.putIfAbsent(1, accountWithBalance(amountOf(10), FIXED_CLOCK));
+		PostingEngine engine = new PostingEngine(registry, 1, 8);
+		engine.close();
+
+		for (int i = 0; i < 100; i++) {
+			ExecutionException thrown = assertThrows(ExecutionException.class, () -> engine.deposit(1, amountOf(1)).get());
+			assertThat(thrown.getCause(), is(instanceOf(RejectedExecutionException.class)));
+		}
+		assertThat(registry.get(1).balance(), is(amountOf(10)));
+	}
+
+	private static long idOnSameShard(PostingEngine engine, long accountId) {
+		long id = accountId + 1;
+		while (engine.shardOf(id) != engine.shardOf(accountId))
+			id++;
+		return id;
+	}
+
+	private static long idOnOtherShard(PostingEngine engine, long accountId) {
+		long id = accountId + 1;
+		while (engine.shardOf(id) == engine.shardOf(accountId))
+			id++;
+		return id;
+	}
+
+	/**
+	 * A ledger whose appends can be made to wait at a gate or to fail.
+	 */
+	private static class ControlledLedger extends ListLedger {
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private volatile CountDownLatch gate;
+		private volatile RuntimeException failure;
+
+		void closeGate() {
+			gate = new CountDownLatch(1);
+		}
+
+		@Override
+		public void append(Transaction transaction) {
+			if (failure != null)
+				throw failure;
+			if (gate != null) {
+				entered.countDown();
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			super.append(transaction);
+		}
+	}
+}
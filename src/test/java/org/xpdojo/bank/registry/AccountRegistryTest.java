@@ -0,0 +1,130 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.registry;
+
+import org.junit.jupiter.api.Test;
+import org.xpdojo.bank.Account;
+import org.xpdojo.bank.Clock;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.xpdojo.bank.Account.emptyAccount;
+
+class AccountRegistryTest {
+
+	private static final Clock FIXED_CLOCK = () -> Instant.parse("2019-02-03T10:15:30Z");
+
+	@Test
+	void registeredAccountsShouldBeFoundById() {
+		AccountRegistry registry = new AccountRegistry(4, 2);
+		Map<Long, Account> expected = new HashMap<>();
+		for (long id = -50; id <= 50; id++) {
+			Account account = emptyAccount(FIXED_CLOCK);
+			assertThat(registry.putIfAbsent(id, account), is(nullValue()));
+			expected.put(id, account);
+		}
+
+		assertThat(registry.size(), is(101L));
+		expected.forEach((id, account) -> assertThat(registry.get(id), is(sameInstance(account))));
+		assertThat(registry.get(51), is(nullValue()));
+	}
+
+	@Test
+	void anAccountShouldOnlyBeRegisteredOnce() {
+		AccountRegistry registry = new AccountRegistry();
+		Account first = emptyAccount(FIXED_CLOCK);
+		registry.putIfAbsent(7, first);
+
+		assertThat(registry.putIfAbsent(7, emptyAccount(FIXED_CLOCK)), is(sameInstance(first)));
+		assertThat(registry.get(7), is(sameInstance(first)));
+		assertThat(registry.size(), is(1L));
+	}
+
+	@Test
+	void removedAccountsShouldNoLongerBeFoundAndCanBeRegisteredAgain() {
+		AccountRegistry registry = new AccountRegistry(1, 4);
+		for (long id = 0; id < 100; id++)
+			registry.putIfAbsent(id, emptyAccount(FIXED_CLOCK));
+		for (long id = 0; id < 100; id += 2)
+			registry.remove(id);
+
+		assertThat(registry.size(), is(50L));
+		assertThat(registry.get(0), is(nullValue()));
+		assertThat(registry.get(42), is(nullValue()));
+		assertThat(registry.get(43) != null, is(true));
+		assertThat(registry.remove(42), is(nullValue()));
+
+		Account again = emptyAccount(FIXED_CLOCK);
+		registry.putIfAbsent(42, again);
+		assertThat(registry.get(42), is(sameInstance(again)));
+	}
+
+	@Test
+	void forEachShouldVisitEveryRegisteredAccount() {
+		AccountRegistry registry = new AccountRegistry(8, 16);
+		for (long id = 0; id < 1_000; id++)
+			registry.putIfAbsent(id, emptyAccount(FIXED_CLOCK));
+		registry.remove(500);
+
+		AtomicLong sum = new AtomicLong();
+		AtomicLong count = new AtomicLong();
+		registry.parallelForEach((account, id) -> {
+			sum.addAndGet(id);
+			count.incrementAndGet();
+		});
+
+		assertThat(count.get(), is(999L));
+		assertThat(sum.get(), is(999L * 1_000 / 2 - 500));
+	}
+
+	@Test
+	void readersShouldSeeEveryAccountWhileWritersGrowTheShards() throws InterruptedException {
+		AccountRegistry registry = new AccountRegistry(2, 1);
+		AtomicLong misses = new AtomicLong();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int writer = 0; writer < 2; writer++) {
+			long first = writer;
+			executor.execute(() -> {
+				for (long id = first + 1; id <= 100_000; id += 2) {
+					registry.putIfAbsent(id, emptyAccount(FIXED_CLOCK));
+					if (registry.get(id) == null)
+						misses.incrementAndGet();
+				}
+			});
+		}
+		executor.execute(() -> {
+			for (int i = 0; i < 100_000; i++)
+				registry.get(i);
+		});
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+
+		assertThat(misses.get(), is(0L));
+		assertThat(registry.size(), is(100_000L));
+	}
+}
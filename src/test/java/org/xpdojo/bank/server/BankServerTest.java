@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright (c) 2019 xp-dojo organisation and committers
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xpdojo.bank.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class BankServerTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private BankServer server;
+
+	@BeforeEach
+	void start() throws Exception {
+		server = new BankServer(0, Path.of("src/main/webapp"), BankServer.threadPool(4, 16, true), 1, 1).start();
+	}
+
+	@AfterEach
+	void stop() {
+		server.close();
+	}
+
+	@Test
+	void shouldServeTheLoginPage() throws Exception {
+		HttpResponse<String> page = get("/", null);
+
+		assertThat(page.statusCode(), is(200));
+		assertThat(page.body(), containsString("<title>Bank Login</title>"));
+	}
+
+	@Test
+	void shouldServeTheStatementOnceLoggedIn() throws Exception {
+		assertThat(get("/api/statement", null).statusCode(), is(401));
+
+		HttpResponse<String> login = client.send(request("/api/login")
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"testuser\",\"password\":\"password123\"}"))
+			.build(), HttpResponse.BodyHandlers.ofString());
+		assertThat(login.body(), containsString("\"success\":true"));
+		String cookie = login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+
+		HttpResponse<String> statement = get("/api/statement?format=json", cookie);
+		assertThat(statement.statusCode(), is(200));
+		assertThat(statement.body(), containsString("\"closingBalance\""));
+	}
+
+	private HttpResponse<String> get(String path, String cookie) throws Exception {
+		HttpRequest.Builder request = request(path);
+		if (cookie != null)
+			request.header("Cookie", cookie);
+		return client.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+	}
+}